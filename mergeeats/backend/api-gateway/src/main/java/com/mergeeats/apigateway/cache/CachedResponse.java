@@ -0,0 +1,166 @@
+package com.mergeeats.apigateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A stored upstream response: status, the headers that describe the body, and the body.
+ *
+ * Only representation headers are kept; per-request headers such as CORS, rate limit or
+ * connection headers are produced again for every client.
+ */
+public final class CachedResponse {
+
+    static final List<String> STORED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL);
+
+    // Vary values every response carries from CORS support; they do not change the body
+    private static final List<String> IGNORED_VARY = List.of(
+            "origin", "access-control-request-method", "access-control-request-headers");
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final long storedAtNanos;
+    private final long freshNanos;
+    private final long staleNanos;
+
+    // Set while a background refresh of this response is running
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    CachedResponse(int status, HttpHeaders headers, byte[] body, long storedAtNanos, Duration fresh, Duration stale) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.storedAtNanos = storedAtNanos;
+        this.freshNanos = fresh.toNanos();
+        this.staleNanos = stale.toNanos();
+    }
+
+    /**
+     * How long upstream allows a response to be stored, within the policy's TTL, or null when it
+     * must not be stored at all: errors, responses with cookies, private or no-store responses, and
+     * responses that vary on request headers.
+     */
+    static Freshness freshness(int status, HttpHeaders headers, Duration policyTtl, Duration defaultStale) {
+        if (status != 200 || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return null;
+        }
+        for (String vary : headers.getVary()) {
+            if (!IGNORED_VARY.contains(vary.trim().toLowerCase(Locale.ROOT))) {
+                return null;
+            }
+        }
+
+        Duration ttl = policyTtl;
+        Duration stale = defaultStale;
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                String value = directive.trim().toLowerCase(Locale.ROOT);
+                if (value.equals("no-store") || value.equals("private") || value.equals("no-cache")) {
+                    return null;
+                } else if (value.startsWith("s-maxage=")) {
+                    sharedMaxAge = seconds(value.substring("s-maxage=".length()));
+                } else if (value.startsWith("max-age=")) {
+                    maxAge = seconds(value.substring("max-age=".length()));
+                } else if (value.startsWith("stale-while-revalidate=")) {
+                    Long seconds = seconds(value.substring("stale-while-revalidate=".length()));
+                    if (seconds != null) {
+                        stale = Duration.ofSeconds(seconds);
+                    }
+                }
+            }
+        }
+
+        Long upstreamSeconds = sharedMaxAge != null ? sharedMaxAge : maxAge;
+        if (upstreamSeconds != null) {
+            ttl = Duration.ofSeconds(Math.min(upstreamSeconds, policyTtl.getSeconds()));
+        }
+        if (ttl.isZero() || ttl.isNegative()) {
+            return null;
+        }
+        return new Freshness(ttl, stale);
+    }
+
+    private static Long seconds(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static HttpHeaders storedHeaders(HttpHeaders upstream) {
+        HttpHeaders stored = new HttpHeaders();
+        for (String name : STORED_HEADERS) {
+            List<String> values = upstream.get(name);
+            if (values != null) {
+                stored.put(name, values);
+            }
+        }
+        return HttpHeaders.readOnlyHttpHeaders(stored);
+    }
+
+    /**
+     * How long a response is fresh, and for how long after that it may be served stale.
+     */
+    static final class Freshness {
+
+        final Duration fresh;
+        final Duration stale;
+
+        Freshness(Duration fresh, Duration stale) {
+            this.fresh = fresh;
+            this.stale = stale;
+        }
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getETag() {
+        return headers.getETag();
+    }
+
+    public AtomicBoolean revalidating() {
+        return revalidating;
+    }
+
+    public boolean isFresh(long nowNanos) {
+        return nowNanos - storedAtNanos < freshNanos;
+    }
+
+    public long ageSeconds(long nowNanos) {
+        return Duration.ofNanos(nowNanos - storedAtNanos).getSeconds();
+    }
+
+    // Total time the entry is kept: fresh, then stale
+    long lifetimeNanos() {
+        return freshNanos + staleNanos;
+    }
+
+    long storedAtNanos() {
+        return storedAtNanos;
+    }
+
+    CachedResponse refreshed(long nowNanos, Duration fresh, Duration stale) {
+        return new CachedResponse(status, headers, body, nowNanos, fresh, stale);
+    }
+}
@@ -0,0 +1,194 @@
+package com.mergeeats.apigateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stored GET responses of the gateway, bounded by the total size of their bodies.
+ *
+ * An entry is kept for its fresh lifetime plus its stale-while-revalidate window; Caffeine evicts
+ * the least valuable entries first when the size bound is reached. Lookups are counted per route so
+ * the hit ratio of each route is exported as gateway.cache.hit.ratio.
+ */
+public class ResponseCache {
+
+    // Rough per-entry cost of the key, headers and bookkeeping, on top of the body
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    private final Cache<String, CachedResponse> entries;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Lookup outcomes of one route. Coalesced requests, served by an identical request in flight,
+     * count as hits.
+     */
+    public static final class RouteStats {
+
+        final LongAdder hits = new LongAdder();
+        final LongAdder staleHits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+
+        public void hit() {
+            hits.increment();
+        }
+
+        public void staleHit() {
+            staleHits.increment();
+        }
+
+        public void miss() {
+            misses.increment();
+        }
+
+        double hitRatio() {
+            double served = hits.sum() + staleHits.sum();
+            double total = served + misses.sum();
+            return total == 0 ? 0.0 : served / total;
+        }
+    }
+
+    public ResponseCache(long maxBytes, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse response) ->
+                        response.getBody().length + key.length() * 2 + ENTRY_OVERHEAD_BYTES)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        return Math.max(0, response.lifetimeNanos() - (currentTime - response.storedAtNanos()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, response, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        Gauge.builder("gateway.cache.entries", entries, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    public CachedResponse get(String key) {
+        return entries.getIfPresent(key);
+    }
+
+    public void put(String key, CachedResponse response) {
+        entries.put(key, response);
+    }
+
+    public void invalidate(String key) {
+        entries.invalidate(key);
+    }
+
+    /**
+     * Stores an upstream response if its status and headers allow it.
+     *
+     * @return the stored response, or null when it is not cacheable
+     */
+    public CachedResponse store(String key, int status, HttpHeaders headers, byte[] body, Duration policyTtl,
+                                Duration defaultStale) {
+        CachedResponse.Freshness freshness = CachedResponse.freshness(status, headers, policyTtl, defaultStale);
+        if (freshness == null) {
+            entries.invalidate(key);
+            return null;
+        }
+        CachedResponse response = new CachedResponse(status, CachedResponse.storedHeaders(headers), body,
+                System.nanoTime(), freshness.fresh, freshness.stale);
+        entries.put(key, response);
+        return response;
+    }
+
+    /**
+     * Marks a stored response as confirmed by upstream (304 Not Modified). New caching headers from
+     * the confirmation win over the stored ones.
+     */
+    public void refresh(String key, CachedResponse response, HttpHeaders confirmation, Duration policyTtl,
+                        Duration defaultStale) {
+        HttpHeaders headers = confirmation.getCacheControl() != null ? confirmation : response.getHeaders();
+        CachedResponse.Freshness freshness = CachedResponse.freshness(200, headers, policyTtl, defaultStale);
+        if (freshness == null) {
+            entries.invalidate(key);
+            return;
+        }
+        entries.put(key, response.refreshed(System.nanoTime(), freshness.fresh, freshness.stale));
+    }
+
+    public RouteStats stats(String routeId) {
+        return stats.computeIfAbsent(routeId, this::registerStats);
+    }
+
+    private RouteStats registerStats(String routeId) {
+        RouteStats routeStats = new RouteStats();
+        FunctionCounter.builder("gateway.cache.requests", routeStats.hits, LongAdder::sum)
+                .tags("route", routeId, "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("gateway.cache.requests", routeStats.staleHits, LongAdder::sum)
+                .tags("route", routeId, "result", "stale").register(meterRegistry);
+        FunctionCounter.builder("gateway.cache.requests", routeStats.misses, LongAdder::sum)
+                .tags("route", routeId, "result", "miss").register(meterRegistry);
+        Gauge.builder("gateway.cache.hit.ratio", routeStats, RouteStats::hitRatio)
+                .tag("route", routeId).register(meterRegistry);
+        return routeStats;
+    }
+
+    /**
+     * The cache key of a request: its path without a trailing slash, and its query parameters
+     * sorted by name and value, so equivalent URLs share one entry.
+     */
+    public static String key(ServerHttpRequest request) {
+        String path = request.getPath().value();
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        MultiValueMap<String, String> params = request.getQueryParams();
+        if (params.isEmpty()) {
+            return path;
+        }
+
+        StringBuilder key = new StringBuilder(path).append('?');
+        Map<String, List<String>> sorted = new TreeMap<>(params);
+        boolean first = true;
+        for (Map.Entry<String, List<String>> param : sorted.entrySet()) {
+            List<String> values = new ArrayList<>(param.getValue());
+            values.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+            for (String value : values) {
+                if (!first) {
+                    key.append('&');
+                }
+                first = false;
+                key.append(UriUtils.encodeQueryParam(param.getKey(), StandardCharsets.UTF_8));
+                if (value != null) {
+                    key.append('=').append(UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return key.toString();
+    }
+}
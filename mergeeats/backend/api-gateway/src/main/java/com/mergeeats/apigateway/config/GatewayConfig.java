@@ -1,13 +1,32 @@
 package com.mergeeats.apigateway.config;
 
+import com.mergeeats.apigateway.policy.RoutePolicy;
+import com.mergeeats.apigateway.policy.RoutePolicyMatcher;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class GatewayConfig {
 
+    @Bean
+    public RoutePolicyMatcher routePolicyMatcher(RoutePolicyProperties properties) {
+        RoutePolicyProperties.PathPolicy defaults = properties.getDefaultPolicy();
+        RoutePolicy defaultPolicy = new RoutePolicy(!Boolean.FALSE.equals(defaults.getAuthRequired()),
+                defaults.getRateClass(), defaults.getCacheTtl());
+
+        List<RoutePolicyMatcher.Entry> entries = new ArrayList<>();
+        for (RoutePolicyProperties.PathPolicy path : properties.getPaths()) {
+            entries.add(new RoutePolicyMatcher.Entry(path.getPrefix(), path.getAuthRequired(),
+                    path.getRateClass(), path.getCacheTtl()));
+        }
+        return new RoutePolicyMatcher(defaultPolicy, entries);
+    }
+
     @Bean
     public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
         return builder.routes()
@@ -66,6 +85,8 @@ public class GatewayConfig {
                 
                 .route("websocket-deliveries", r -> r
                         .path("/ws/deliveries/**")
+                        .filters(f -> f
+                                .rewritePath("/ws/deliveries(?<segment>.*)", "/api/deliveries/ws/deliveries${segment}"))
                         .uri("ws://localhost:8085"))
                 
                 .build();
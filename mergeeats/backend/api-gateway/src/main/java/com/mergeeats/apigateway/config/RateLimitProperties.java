@@ -0,0 +1,173 @@
+package com.mergeeats.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rate limits of the gateway, under gateway.rate-limit.
+ *
+ * A user's own limit wins over the limit of the route, which wins over the default. Limits apply
+ * per client and route: to the user id of authenticated requests, to the client IP otherwise.
+ *
+ * With redis.enabled, buckets are shared by all gateway instances through Redis. Whether a route
+ * keeps serving when Redis is unreachable (limited per instance only) or rejects its requests is
+ * set by the fail-open flag of the route, or of the default limit.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Most buckets kept in memory, and how long an unused bucket is kept
+    private long maxKeys = 100_000;
+    private Duration idleExpiry = Duration.ofMinutes(2);
+
+    private Limit defaultLimit = new Limit();
+
+    private Redis redis = new Redis();
+
+    // By route id, or by rate class of the route policy
+    private Map<String, Limit> routes = new HashMap<>();
+
+    // By user id
+    private Map<String, Limit> users = new HashMap<>();
+
+    public static class Limit {
+
+        private int requestsPerMinute = 100;
+        private int burst = 100;
+
+        // Only read on route limits and the default limit
+        private Boolean failOpen;
+
+        public int getRequestsPerMinute() {
+            return requestsPerMinute;
+        }
+
+        public void setRequestsPerMinute(int requestsPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public Boolean getFailOpen() {
+            return failOpen;
+        }
+
+        public void setFailOpen(Boolean failOpen) {
+            this.failOpen = failOpen;
+        }
+    }
+
+    public static class Redis {
+
+        private boolean enabled = false;
+
+        // Most tokens taken from Redis per round-trip (never more than a tenth of a bucket's burst),
+        // and how long this instance may spend them before the rest is given back
+        private int leaseSize = 10;
+        private Duration leaseTtl = Duration.ofMillis(250);
+
+        // A slower answer counts as Redis being unavailable
+        private Duration timeout = Duration.ofMillis(50);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLeaseSize() {
+            return leaseSize;
+        }
+
+        public void setLeaseSize(int leaseSize) {
+            this.leaseSize = leaseSize;
+        }
+
+        public Duration getLeaseTtl() {
+            return leaseTtl;
+        }
+
+        public void setLeaseTtl(Duration leaseTtl) {
+            this.leaseTtl = leaseTtl;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(long maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public Duration getIdleExpiry() {
+        return idleExpiry;
+    }
+
+    public void setIdleExpiry(Duration idleExpiry) {
+        this.idleExpiry = idleExpiry;
+    }
+
+    public Limit getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(Limit defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public Redis getRedis() {
+        return redis;
+    }
+
+    public void setRedis(Redis redis) {
+        this.redis = redis;
+    }
+
+    public Map<String, Limit> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Limit> routes) {
+        this.routes = routes;
+    }
+
+    public Map<String, Limit> getUsers() {
+        return users;
+    }
+
+    public void setUsers(Map<String, Limit> users) {
+        this.users = users;
+    }
+}
@@ -0,0 +1,68 @@
+package com.mergeeats.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Gateway response cache, under gateway.response-cache. Which paths are cached, and for how long at
+ * most, is set by the cache-ttl of their route policy.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    // Total size of the cached bodies, and the largest body that is cached
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+    // How long an expired response may still be served while it is refreshed, unless upstream says otherwise
+    private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+
+    // How long a request waits for an identical request in flight before going upstream itself
+    private Duration coalesceTimeout = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public DataSize getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(DataSize maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public Duration getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    public Duration getCoalesceTimeout() {
+        return coalesceTimeout;
+    }
+
+    public void setCoalesceTimeout(Duration coalesceTimeout) {
+        this.coalesceTimeout = coalesceTimeout;
+    }
+}
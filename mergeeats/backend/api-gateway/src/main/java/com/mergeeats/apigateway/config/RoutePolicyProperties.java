@@ -0,0 +1,78 @@
+package com.mergeeats.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-path policies of the gateway, under gateway.route-policy: whether a token is required, the
+ * rate class that shares one rate limit, and how long responses may be cached. Settings left out
+ * of a path are inherited from the nearest shorter configured path, then from the default policy.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.route-policy")
+public class RoutePolicyProperties {
+
+    private PathPolicy defaultPolicy = new PathPolicy();
+
+    private List<PathPolicy> paths = new ArrayList<>();
+
+    public static class PathPolicy {
+
+        private String prefix;
+        private Boolean authRequired;
+        private String rateClass;
+        private Duration cacheTtl;
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public void setPrefix(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public Boolean getAuthRequired() {
+            return authRequired;
+        }
+
+        public void setAuthRequired(Boolean authRequired) {
+            this.authRequired = authRequired;
+        }
+
+        public String getRateClass() {
+            return rateClass;
+        }
+
+        public void setRateClass(String rateClass) {
+            this.rateClass = rateClass;
+        }
+
+        public Duration getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+    }
+
+    public PathPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    public void setDefaultPolicy(PathPolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    public List<PathPolicy> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<PathPolicy> paths) {
+        this.paths = paths;
+    }
+}
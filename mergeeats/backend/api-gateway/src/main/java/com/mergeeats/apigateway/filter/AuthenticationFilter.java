@@ -1,8 +1,17 @@
 package com.mergeeats.apigateway.filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mergeeats.apigateway.policy.RoutePolicyMatcher;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
@@ -16,25 +25,99 @@ import reactor.core.publisher.Mono;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class AuthenticationFilter implements GlobalFilter, Ordered {
 
+    // Exchange attribute holding the id of the authenticated user, for the filters that follow
+    public static final String USER_ID_ATTRIBUTE = "mergeeats.userId";
+
     @Value("${jwt.secret:defaultSecretKeyForDevelopmentOnly}")
     private String jwtSecret;
 
-    private static final List<String> PUBLIC_PATHS = List.of(
-            "/api/users/register",
-            "/api/users/login",
-            "/api/users/health",
-            "/api/restaurants",
-            "/api/restaurants/search",
-            "/api/restaurants/nearby",
-            "/swagger-ui",
-            "/v3/api-docs",
-            "/actuator/health"
-    );
+    @Value("${jwt.cache.max-size:100000}")
+    private long maxCacheSize;
+
+    @Value("${jwt.cache.max-ttl:5m}")
+    private Duration maxCacheTtl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RoutePolicyMatcher routePolicyMatcher;
+
+    // Immutable and thread-safe, built once
+    private JwtParser jwtParser;
+
+    // Verified tokens by SHA-256 digest, each kept until the token expires
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private final Map<String, Timer> authTimers = new HashMap<>();
+
+    /**
+     * The claims of a token whose signature has been checked.
+     */
+    private static final class VerifiedToken {
+
+        final String userId;
+        final String role;
+        final long expiresAtMillis;
+
+        VerifiedToken(String userId, String role, long expiresAtMillis) {
+            this.userId = userId;
+            this.role = role;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxCacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, VerifiedToken token, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiresAtMillis - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, VerifiedToken token, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(tokenHash, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, VerifiedToken token, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        // Time spent authenticating each request, by whether the token came from the cache
+        for (String outcome : List.of("cached", "verified", "rejected")) {
+            authTimers.put(outcome, Timer.builder("gateway.auth.duration")
+                    .description("Time spent authenticating a request")
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+        meterRegistry.gauge("gateway.auth.cached-tokens", verifiedTokens, Cache::estimatedSize);
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
@@ -42,7 +125,7 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
         String path = request.getPath().value();
 
         // Skip authentication for public paths
-        if (isPublicPath(path)) {
+        if (!routePolicyMatcher.match(path).isAuthRequired()) {
             return chain.filter(exchange);
         }
 
@@ -52,30 +135,36 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
             return onError(exchange, "No token provided", HttpStatus.UNAUTHORIZED);
         }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "rejected";
         try {
-            if (validateToken(token)) {
-                String userId = getUserIdFromToken(token);
-                String userRole = getUserRoleFromToken(token);
-                
-                // Add user info to headers
-                ServerHttpRequest modifiedRequest = request.mutate()
-                        .header("X-User-ID", userId)
-                        .header("X-User-Role", userRole)
-                        .build();
-                
-                return chain.filter(exchange.mutate().request(modifiedRequest).build());
+            String tokenHash = hash(token);
+            VerifiedToken verified = verifiedTokens.getIfPresent(tokenHash);
+            if (verified != null && verified.expiresAtMillis > System.currentTimeMillis()) {
+                outcome = "cached";
             } else {
-                return onError(exchange, "Invalid token", HttpStatus.UNAUTHORIZED);
+                verified = verify(token);
+                verifiedTokens.put(tokenHash, verified);
+                outcome = "verified";
             }
+
+            String userId = verified.userId;
+            exchange.getAttributes().put(USER_ID_ATTRIBUTE, userId);
+            
+            // Add user info to headers
+            ServerHttpRequest modifiedRequest = request.mutate()
+                    .header("X-User-ID", userId)
+                    .header("X-User-Role", verified.role)
+                    .build();
+            
+            return chain.filter(exchange.mutate().request(modifiedRequest).build());
         } catch (Exception e) {
-            return onError(exchange, "Token validation failed", HttpStatus.UNAUTHORIZED);
+            return onError(exchange, "Invalid token", HttpStatus.UNAUTHORIZED);
+        } finally {
+            sample.stop(authTimers.get(outcome));
         }
     }
 
-    private boolean isPublicPath(String path) {
-        return PUBLIC_PATHS.stream().anyMatch(path::startsWith);
-    }
-
     private String getTokenFromRequest(ServerHttpRequest request) {
         String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
@@ -84,37 +173,19 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
         return null;
     }
 
-    private boolean validateToken(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-    private String getUserIdFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+    // Verifies the signature and expiry once and keeps what the filter needs from the claims
+    private VerifiedToken verify(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        long maxExpiry = System.currentTimeMillis() + maxCacheTtl.toMillis();
+        long expiresAt = claims.getExpiration() != null
+                ? Math.min(claims.getExpiration().getTime(), maxExpiry) : maxExpiry;
+        return new VerifiedToken(claims.getSubject(), claims.get("role", String.class), expiresAt);
     }
 
-    private String getUserRoleFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+    // Tokens are cached under their digest so the cache does not hold usable credentials
+    private static String hash(String token) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(digest);
     }
 
     private Mono<Void> onError(ServerWebExchange exchange, String message, HttpStatus status) {
@@ -1,7 +1,22 @@
 package com.mergeeats.apigateway.filter;
 
+import com.mergeeats.apigateway.config.RateLimitProperties;
+import com.mergeeats.apigateway.policy.RoutePolicyMatcher;
+import com.mergeeats.apigateway.ratelimit.RedisRateLimiter;
+import com.mergeeats.apigateway.ratelimit.TokenBucketRateLimiter;
+import com.mergeeats.apigateway.ratelimit.TokenBucketRateLimiter.RateLimit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -9,31 +24,133 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class RateLimitingFilter implements GlobalFilter, Ordered {
 
-    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
-    private final Map<String, Long> lastResetTime = new ConcurrentHashMap<>();
-    
-    private static final int MAX_REQUESTS_PER_MINUTE = 100;
-    private static final long RESET_INTERVAL = 60000; // 1 minute
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitingFilter.class);
+
+    // Decision of a fail-closed route while Redis is unavailable
+    private static final long UNAVAILABLE = Long.MIN_VALUE;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<ReactiveStringRedisTemplate> redisTemplate;
+
+    @Autowired
+    private RoutePolicyMatcher routePolicyMatcher;
+
+    // Per instance; also the fallback of fail-open routes when Redis is unavailable
+    private TokenBucketRateLimiter limiter;
+
+    // Shared by all instances, when enabled
+    private RedisRateLimiter redisLimiter;
+
+    // Limits converted once at startup
+    private RateLimit defaultLimit;
+    private final Map<String, RateLimit> routeLimits = new HashMap<>();
+    private final Map<String, RateLimit> userLimits = new HashMap<>();
+    private final Map<String, Boolean> routeFailOpen = new HashMap<>();
+    private boolean defaultFailOpen;
+
+    @PostConstruct
+    void init() {
+        limiter = new TokenBucketRateLimiter(properties.getMaxKeys(), properties.getIdleExpiry());
+        defaultLimit = toRateLimit(properties.getDefaultLimit());
+        defaultFailOpen = !Boolean.FALSE.equals(properties.getDefaultLimit().getFailOpen());
+        properties.getRoutes().forEach((routeId, limit) -> {
+            routeLimits.put(routeId, toRateLimit(limit));
+            if (limit.getFailOpen() != null) {
+                routeFailOpen.put(routeId, limit.getFailOpen());
+            }
+        });
+        properties.getUsers().forEach((userId, limit) -> userLimits.put(userId, toRateLimit(limit)));
+
+        meterRegistry.gauge("gateway.ratelimit.buckets", limiter, TokenBucketRateLimiter::estimatedSize);
+
+        RateLimitProperties.Redis redis = properties.getRedis();
+        if (redis.isEnabled()) {
+            redisLimiter = new RedisRateLimiter(redisTemplate.getObject(), redis.getLeaseSize(), redis.getLeaseTtl(),
+                    redis.getTimeout(), properties.getMaxKeys());
+            meterRegistry.more().counter("gateway.ratelimit.redis.calls", Tags.empty(), redisLimiter,
+                    RedisRateLimiter::redisCalls);
+        }
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
         ServerHttpRequest request = exchange.getRequest();
-        String clientIp = getClientIp(request);
-        
-        if (isRateLimitExceeded(clientIp)) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        // Paths of one rate class share its limit and buckets, whatever route serves them
+        String rateClass = routePolicyMatcher.match(request.getPath().value()).getRateClass();
+        String routeId = rateClass != null ? rateClass : route != null ? route.getId() : "default";
+        String userId = exchange.getAttribute(AuthenticationFilter.USER_ID_ATTRIBUTE);
+
+        RateLimit limit = resolveLimit(routeId, userId);
+        String client = userId != null ? "user:" + userId : "ip:" + getClientIp(request);
+        String key = routeId + "|" + client;
+
+        if (redisLimiter == null) {
+            return apply(exchange, chain, routeId, limiter.tryAcquire(key, limit));
+        }
+        return redisLimiter.tryAcquire(key, limit)
+                .onErrorResume(e -> Mono.just(onRedisFailure(routeId, key, limit, e)))
+                .flatMap(result -> apply(exchange, chain, routeId, result));
+    }
+
+    private Mono<Void> apply(ServerWebExchange exchange, GatewayFilterChain chain, String routeId, long result) {
+        if (result == UNAVAILABLE) {
+            exchange.getResponse().getHeaders().set("Retry-After", "1");
+            return onError(exchange, "Rate limiter unavailable", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        if (result < 0) {
+            meterRegistry.counter("gateway.ratelimit.rejected", "route", routeId).increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(-result + TimeUnit.SECONDS.toNanos(1) - 1));
+            exchange.getResponse().getHeaders().set("Retry-After", Long.toString(retryAfterSeconds));
+            exchange.getResponse().getHeaders().set("X-RateLimit-Remaining", "0");
             return onError(exchange, "Rate limit exceeded", HttpStatus.TOO_MANY_REQUESTS);
         }
-        
+
+        exchange.getResponse().getHeaders().set("X-RateLimit-Remaining", Long.toString(result));
         return chain.filter(exchange);
     }
 
+    // Fail-open routes fall back to the limit of this instance, fail-closed routes reject
+    private long onRedisFailure(String routeId, String key, RateLimit limit, Throwable error) {
+        boolean failOpen = routeFailOpen.getOrDefault(routeId, defaultFailOpen);
+        meterRegistry.counter("gateway.ratelimit.redis.failures", "route", routeId,
+                "outcome", failOpen ? "open" : "closed").increment();
+        logger.debug("Redis rate limit check failed for route {}: {}", routeId, error.toString());
+        return failOpen ? limiter.tryAcquire(key, limit) : UNAVAILABLE;
+    }
+
+    private RateLimit resolveLimit(String routeId, String userId) {
+        if (userId != null) {
+            RateLimit userLimit = userLimits.get(userId);
+            if (userLimit != null) {
+                return userLimit;
+            }
+        }
+        return routeLimits.getOrDefault(routeId, defaultLimit);
+    }
+
+    private RateLimit toRateLimit(RateLimitProperties.Limit limit) {
+        return new RateLimit(limit.getRequestsPerMinute(), limit.getBurst());
+    }
+
     private String getClientIp(ServerHttpRequest request) {
         String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
@@ -49,24 +166,6 @@ public class RateLimitingFilter implements GlobalFilter, Ordered {
                request.getRemoteAddress().getAddress().getHostAddress() : "unknown";
     }
 
-    private boolean isRateLimitExceeded(String clientIp) {
-        long currentTime = System.currentTimeMillis();
-        
-        // Reset counter if interval has passed
-        if (shouldResetCounter(clientIp, currentTime)) {
-            requestCounts.put(clientIp, new AtomicInteger(0));
-            lastResetTime.put(clientIp, currentTime);
-        }
-        
-        AtomicInteger counter = requestCounts.computeIfAbsent(clientIp, k -> new AtomicInteger(0));
-        return counter.incrementAndGet() > MAX_REQUESTS_PER_MINUTE;
-    }
-
-    private boolean shouldResetCounter(String clientIp, long currentTime) {
-        Long lastReset = lastResetTime.get(clientIp);
-        return lastReset == null || (currentTime - lastReset) > RESET_INTERVAL;
-    }
-
     private Mono<Void> onError(ServerWebExchange exchange, String message, HttpStatus status) {
         exchange.getResponse().setStatusCode(status);
         return exchange.getResponse().setComplete();
@@ -76,4 +175,4 @@ public class RateLimitingFilter implements GlobalFilter, Ordered {
     public int getOrder() {
         return -50; // After authentication filter
     }
-} 
\ No newline at end of file
+} 
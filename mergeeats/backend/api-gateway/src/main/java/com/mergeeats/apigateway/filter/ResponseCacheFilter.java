@@ -0,0 +1,266 @@
+package com.mergeeats.apigateway.filter;
+
+import com.mergeeats.apigateway.cache.CachedResponse;
+import com.mergeeats.apigateway.cache.ResponseCache;
+import com.mergeeats.apigateway.config.ResponseCacheProperties;
+import com.mergeeats.apigateway.policy.RoutePolicy;
+import com.mergeeats.apigateway.policy.RoutePolicyMatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves GET requests of paths whose route policy has a cache TTL from the gateway's response
+ * cache.
+ *
+ * A fresh entry is returned directly, answering If-None-Match with 304 when the ETag matches. A
+ * stale entry still inside its stale-while-revalidate window is returned too, while one background
+ * request revalidates it upstream with If-None-Match. On a miss, only the first of several
+ * identical requests goes upstream; the others wait for its response and are served from it.
+ *
+ * Background revalidation calls the route's URI with the request path, so it suits routes that do
+ * not rewrite paths, such as the restaurant catalog.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    @Autowired
+    private ResponseCacheProperties properties;
+
+    @Autowired
+    private RoutePolicyMatcher routePolicyMatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ResponseCache cache;
+    private WebClient webClient;
+
+    // Misses going upstream, by cache key; identical requests wait for their result
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        cache = new ResponseCache(properties.getMaxSize().toBytes(), meterRegistry);
+        int maxEntrySize = (int) properties.getMaxEntrySize().toBytes();
+        webClient = WebClient.builder()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxEntrySize))
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        RoutePolicy policy = routePolicyMatcher.match(request.getPath().value());
+        if (!policy.isCacheable() || requestsNoCache(request)) {
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ResponseCache.RouteStats stats = cache.stats(route != null ? route.getId() : "default");
+        String key = ResponseCache.key(request);
+
+        long now = System.nanoTime();
+        CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            if (cached.isFresh(now)) {
+                stats.hit();
+                return write(exchange, cached, "HIT");
+            }
+            stats.staleHit();
+            revalidate(exchange, route, key, cached, policy);
+            return write(exchange, cached, "STALE");
+        }
+
+        Sinks.One<CachedResponse> sink = Sinks.one();
+        Sinks.One<CachedResponse> leader = inFlight.putIfAbsent(key, sink);
+        if (leader != null) {
+            return leader.asMono()
+                    .timeout(properties.getCoalesceTimeout())
+                    .map(Optional::of)
+                    .onErrorResume(e -> Mono.just(Optional.empty()))
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(response -> {
+                        if (response.isPresent()) {
+                            stats.hit();
+                            return write(exchange, response.get(), "HIT");
+                        }
+                        // The response in flight could not be cached; go upstream like any other request
+                        stats.miss();
+                        return chain.filter(exchange);
+                    });
+        }
+
+        stats.miss();
+        exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+        ServerHttpResponse capturing = capture(exchange.getResponse(), key, policy, sink);
+        return chain.filter(exchange.mutate().response(capturing).build())
+                .doFinally(signal -> {
+                    sink.tryEmitEmpty();
+                    inFlight.remove(key, sink);
+                });
+    }
+
+    // Passes the upstream body through to the client, keeping a copy to store when it is cacheable
+    private ServerHttpResponse capture(ServerHttpResponse response, String key, RoutePolicy policy,
+                                       Sinks.One<CachedResponse> sink) {
+        long maxEntrySize = properties.getMaxEntrySize().toBytes();
+        return new ServerHttpResponseDecorator(response) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpStatusCode status = getStatusCode();
+                long contentLength = getHeaders().getContentLength();
+                if (status == null || status.value() != 200 || contentLength > maxEntrySize) {
+                    return super.writeWith(body);
+                }
+
+                ByteArrayOutputStream copy = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 1024);
+                boolean[] tooLarge = {false};
+                Flux<DataBuffer> teed = Flux.<DataBuffer>from(body).doOnNext(buffer -> {
+                    int readable = buffer.readableByteCount();
+                    if (tooLarge[0] || copy.size() + readable > maxEntrySize) {
+                        tooLarge[0] = true;
+                        return;
+                    }
+                    int position = buffer.readPosition();
+                    byte[] bytes = new byte[readable];
+                    buffer.read(bytes);
+                    buffer.readPosition(position);
+                    copy.writeBytes(bytes);
+                });
+
+                return super.writeWith(teed).doOnSuccess(done -> {
+                    if (!tooLarge[0]) {
+                        CachedResponse stored = cache.store(key, status.value(), getHeaders(), copy.toByteArray(),
+                                policy.getCacheTtl(), properties.getStaleWhileRevalidate());
+                        if (stored != null) {
+                            sink.tryEmitValue(stored);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached, String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.getHeaders());
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+        headers.set(HttpHeaders.AGE, Long.toString(cached.ageSeconds(System.nanoTime())));
+
+        String etag = cached.getETag();
+        if (etag != null && matchesETag(exchange.getRequest().getHeaders().getIfNoneMatch(), etag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatusCode.valueOf(cached.getStatus()));
+        headers.setContentLength(cached.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    // Refreshes a stale entry in the background; only one refresh per entry runs at a time
+    private void revalidate(ServerWebExchange exchange, Route route, String key, CachedResponse cached,
+                            RoutePolicy policy) {
+        if (route == null || !cached.revalidating().compareAndSet(false, true)) {
+            return;
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        URI uri = UriComponentsBuilder.fromUri(route.getUri())
+                .replacePath(request.getPath().value())
+                .replaceQuery(request.getURI().getRawQuery())
+                .build(true)
+                .toUri();
+        Duration ttl = policy.getCacheTtl();
+        Duration stale = properties.getStaleWhileRevalidate();
+
+        webClient.get()
+                .uri(uri)
+                .headers(headers -> {
+                    headers.setAccept(request.getHeaders().getAccept());
+                    if (cached.getETag() != null) {
+                        headers.setIfNoneMatch(cached.getETag());
+                    }
+                })
+                .exchangeToMono(upstream -> {
+                    if (upstream.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                        cache.refresh(key, cached, upstream.headers().asHttpHeaders(), ttl, stale);
+                        return upstream.releaseBody();
+                    }
+                    if (upstream.statusCode().value() != HttpStatus.OK.value()) {
+                        // Keep serving the stale copy until it expires
+                        return upstream.releaseBody();
+                    }
+                    return upstream.bodyToMono(byte[].class)
+                            .defaultIfEmpty(new byte[0])
+                            .doOnNext(body -> cache.store(key, HttpStatus.OK.value(), upstream.headers().asHttpHeaders(),
+                                    body, ttl, stale))
+                            .then();
+                })
+                .timeout(properties.getCoalesceTimeout())
+                .doFinally(signal -> cached.revalidating().set(false))
+                .subscribe(null, e -> logger.debug("Could not revalidate cached response {}: {}", key, e.toString()));
+    }
+
+    private boolean requestsNoCache(ServerHttpRequest request) {
+        String cacheControl = request.getHeaders().getCacheControl();
+        return cacheControl != null && (cacheControl.contains("no-cache") || cacheControl.contains("no-store"));
+    }
+
+    private boolean matchesETag(List<String> ifNoneMatch, String etag) {
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch) {
+            String value = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if (value.equals("*") || value.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getOrder() {
+        return -40; // After rate limiting, so cached responses still count against limits
+    }
+}
@@ -0,0 +1,37 @@
+package com.mergeeats.apigateway.policy;
+
+import java.time.Duration;
+
+/**
+ * How the gateway treats requests under one path prefix.
+ */
+public final class RoutePolicy {
+
+    private final boolean authRequired;
+    private final String rateClass;
+    private final Duration cacheTtl;
+
+    public RoutePolicy(boolean authRequired, String rateClass, Duration cacheTtl) {
+        this.authRequired = authRequired;
+        this.rateClass = rateClass;
+        this.cacheTtl = cacheTtl != null ? cacheTtl : Duration.ZERO;
+    }
+
+    public boolean isAuthRequired() {
+        return authRequired;
+    }
+
+    // Name of the rate limit shared by the paths of this policy, or null to limit by route
+    public String getRateClass() {
+        return rateClass;
+    }
+
+    // How long responses may be served from the gateway cache; zero when they are not cached
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public boolean isCacheable() {
+        return !cacheTtl.isZero() && !cacheTtl.isNegative();
+    }
+}
@@ -0,0 +1,133 @@
+package com.mergeeats.apigateway.policy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the policy of a request path: the policy of the longest configured prefix that ends at a
+ * segment boundary, so /api/users/login covers /api/users/login and /api/users/login/otp but not
+ * /api/users/loginAdmin.
+ *
+ * Prefixes are compiled once into a character trie. A lookup walks the path once without
+ * allocating; every node already holds its policy merged with those of its ancestors, so settings
+ * left unset on a prefix are inherited from the nearest shorter prefix, then from the default.
+ */
+public class RoutePolicyMatcher {
+
+    private final Node root;
+
+    /**
+     * One configured prefix, with the settings it overrides (null to inherit).
+     */
+    public static final class Entry {
+
+        final String prefix;
+        final Boolean authRequired;
+        final String rateClass;
+        final Duration cacheTtl;
+
+        public Entry(String prefix, Boolean authRequired, String rateClass, Duration cacheTtl) {
+            this.prefix = normalize(prefix);
+            this.authRequired = authRequired;
+            this.rateClass = rateClass;
+            this.cacheTtl = cacheTtl;
+        }
+    }
+
+    private static final class Node {
+
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        Entry entry;
+        RoutePolicy policy;
+
+        Node child(char label) {
+            char[] keys = labels;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == label) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char label) {
+            Node existing = child(label);
+            if (existing != null) {
+                return existing;
+            }
+            Node node = new Node();
+            labels = Arrays.copyOf(labels, labels.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            labels[labels.length - 1] = label;
+            children[children.length - 1] = node;
+            return node;
+        }
+    }
+
+    public RoutePolicyMatcher(RoutePolicy defaultPolicy, List<Entry> entries) {
+        root = new Node();
+        root.policy = defaultPolicy;
+
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingInt(entry -> entry.prefix.length()));
+        for (Entry entry : sorted) {
+            if (entry.prefix.isEmpty()) {
+                root.policy = merge(root.policy, entry);
+                continue;
+            }
+            Node node = root;
+            for (int i = 0; i < entry.prefix.length(); i++) {
+                node = node.addChild(entry.prefix.charAt(i));
+            }
+            node.entry = entry;
+        }
+        resolve(root, root.policy);
+    }
+
+    // The policy of a request path, as returned by ServerHttpRequest.getPath()
+    public RoutePolicy match(String path) {
+        RoutePolicy best = root.policy;
+        Node node = root;
+        int length = path.length();
+        for (int i = 0; i < length; i++) {
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.policy != null && (i + 1 == length || path.charAt(i + 1) == '/')) {
+                best = node.policy;
+            }
+        }
+        return best;
+    }
+
+    private static void resolve(Node node, RoutePolicy inherited) {
+        RoutePolicy current = inherited;
+        if (node.entry != null) {
+            node.policy = merge(inherited, node.entry);
+            current = node.policy;
+        }
+        for (Node child : node.children) {
+            resolve(child, current);
+        }
+    }
+
+    private static RoutePolicy merge(RoutePolicy parent, Entry entry) {
+        return new RoutePolicy(
+                entry.authRequired != null ? entry.authRequired : parent.isAuthRequired(),
+                entry.rateClass != null ? entry.rateClass : parent.getRateClass(),
+                entry.cacheTtl != null ? entry.cacheTtl : parent.getCacheTtl());
+    }
+
+    private static String normalize(String prefix) {
+        String normalized = prefix == null ? "" : prefix.trim();
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,176 @@
+package com.mergeeats.apigateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.mergeeats.apigateway.ratelimit.TokenBucketRateLimiter.RateLimit;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cluster-wide token buckets kept in Redis, shared by every gateway instance.
+ *
+ * Buckets follow the same GCRA scheme as {@link TokenBucketRateLimiter}, checked and updated by one
+ * Lua script against the Redis clock, so replicas with skewed clocks still agree. Instead of one
+ * token per call, the script hands out a lease of several tokens that this instance spends locally
+ * until it runs out or expires, so most requests never leave the JVM.
+ *
+ * Leased tokens are already taken from the shared bucket, so the cluster never admits more than
+ * the limit. To keep one instance from holding tokens another one needs, a lease is at most a
+ * tenth of the burst, extra tokens are only leased while at least half the burst is left, each
+ * instance has at most one lease request per key in flight, and tokens left when a lease expires
+ * or is evicted are given back to the bucket.
+ */
+public class RedisRateLimiter {
+
+    private static final String KEY_PREFIX = "gateway:ratelimit:";
+
+    // A lease never takes more than this share of a bucket's burst
+    private static final int LEASE_BURST_DIVISOR = 10;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisScript<List> script;
+    private final RedisScript<Long> refundScript;
+    private final int leaseSize;
+    private final long leaseTtlNanos;
+    private final Duration timeout;
+
+    private final Cache<String, Lease> leases;
+    private final Map<String, Mono<Long>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder redisCalls = new LongAdder();
+
+    /**
+     * Tokens taken from Redis and not spent yet.
+     */
+    private static final class Lease {
+
+        final AtomicInteger remaining;
+        final long expiresAtNanos;
+        final RateLimit limit;
+
+        Lease(int remaining, long expiresAtNanos, RateLimit limit) {
+            this.remaining = new AtomicInteger(remaining);
+            this.expiresAtNanos = expiresAtNanos;
+            this.limit = limit;
+        }
+
+        // Spends one token; the count may go below zero when requests race for the last one
+        int take(long nowNanos) {
+            return nowNanos < expiresAtNanos ? remaining.decrementAndGet() : -1;
+        }
+
+        // Takes all unspent tokens, so a take racing with the refund finds the lease empty
+        int drain() {
+            return Math.max(0, remaining.getAndSet(0));
+        }
+    }
+
+    public RedisRateLimiter(ReactiveStringRedisTemplate redisTemplate, int leaseSize, Duration leaseTtl,
+                            Duration timeout, long maxKeys) {
+        this.redisTemplate = redisTemplate;
+        this.script = RedisScript.of(new ClassPathResource("scripts/gcra_lease.lua"), List.class);
+        this.refundScript = RedisScript.of(new ClassPathResource("scripts/gcra_refund.lua"), Long.class);
+        this.leaseSize = leaseSize;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.timeout = timeout;
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(leaseTtl)
+                // Expired leases are removed, and refunded, even for keys that see no more traffic
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((String key, Lease lease, RemovalCause cause) -> {
+                    if (key != null && lease != null) {
+                        refund(key, lease);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Takes one token from the shared bucket of a key, from the local lease when possible.
+     *
+     * @return the tokens left in the local lease when the request is allowed, or the negated
+     *         nanoseconds until a token is available when it is rejected; fails with the Redis
+     *         error when Redis cannot be reached in time
+     */
+    public Mono<Long> tryAcquire(String key, RateLimit limit) {
+        long now = System.nanoTime();
+        Lease lease = leases.getIfPresent(key);
+        if (lease != null) {
+            int remaining = lease.take(now);
+            if (remaining >= 0) {
+                return Mono.just((long) remaining);
+            }
+        }
+
+        // Requests that miss the lease together share one Redis call and then spend its lease
+        Mono<Long> pending = inFlight.computeIfAbsent(key, k -> requestLease(k, limit).cache());
+        return pending.flatMap(result -> {
+            if (result < 0) {
+                return Mono.just(result);
+            }
+            Lease fresh = leases.getIfPresent(key);
+            int remaining = fresh != null ? fresh.take(System.nanoTime()) : -1;
+            // Spent by the other requests that waited on the same call; ask Redis again
+            return remaining >= 0 ? Mono.just((long) remaining) : tryAcquire(key, limit);
+        });
+    }
+
+    // Returns the tokens leased, or the negated nanoseconds until a token is available
+    private Mono<Long> requestLease(String key, RateLimit limit) {
+        int requested = Math.max(1, Math.min(leaseSize, limit.getBurst() / LEASE_BURST_DIVISOR));
+        List<String> args = List.of(
+                Long.toString(TimeUnit.NANOSECONDS.toMicros(limit.getEmissionIntervalNanos())),
+                Long.toString(TimeUnit.NANOSECONDS.toMicros(limit.getCapacityNanos())),
+                Integer.toString(requested));
+
+        redisCalls.increment();
+        return redisTemplate.execute(script, List.of(KEY_PREFIX + key), args)
+                .next()
+                .timeout(timeout)
+                .map(result -> {
+                    long granted = ((Number) result.get(0)).longValue();
+                    if (granted <= 0) {
+                        long waitMicros = ((Number) result.get(1)).longValue();
+                        return -Math.max(1, TimeUnit.MICROSECONDS.toNanos(waitMicros));
+                    }
+                    // Any lease still cached is spent or expired; the listener refunds what is left of it
+                    leases.put(key, new Lease((int) granted, System.nanoTime() + leaseTtlNanos, limit));
+                    return granted;
+                })
+                // Removed before waiters see the result, so a waiter that asks again makes a new call
+                .doOnTerminate(() -> inFlight.remove(key));
+    }
+
+    // Gives the unspent tokens of a lease back to the shared bucket, best effort
+    private void refund(String key, Lease lease) {
+        int unspent = lease.drain();
+        if (unspent == 0) {
+            return;
+        }
+
+        List<String> args = List.of(
+                Long.toString(TimeUnit.NANOSECONDS.toMicros(lease.limit.getEmissionIntervalNanos())),
+                Integer.toString(unspent));
+        redisCalls.increment();
+        redisTemplate.execute(refundScript, List.of(KEY_PREFIX + key), args)
+                .next()
+                .timeout(timeout)
+                .subscribe(refunded -> { }, error -> { });
+    }
+
+    public long redisCalls() {
+        return redisCalls.sum();
+    }
+}
@@ -0,0 +1,100 @@
+package com.mergeeats.apigateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token buckets, one per key, each held in a single {@link AtomicLong}.
+ *
+ * A bucket stores its theoretical arrival time (the generic cell rate algorithm form of a token
+ * bucket): the instant at which it would be full again if no further request arrived. Taking a
+ * token moves that instant forward by one emission interval with one compare-and-set, so
+ * concurrent requests for the same key never lock and a rejected request writes nothing.
+ *
+ * Buckets live in a Caffeine cache bounded by size and expired after a period without access. An
+ * idle bucket that has refilled completely is indistinguishable from a new one, so expiry only
+ * loses state when the idle period is shorter than the refill time. When the size bound is hit,
+ * the least valuable keys (by Caffeine's frequency-aware policy) are dropped first, so a scan over
+ * many one-off keys cannot push out steady clients.
+ */
+public class TokenBucketRateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    // Times are measured from construction so that they are never negative
+    private final long originNanos = System.nanoTime();
+
+    public TokenBucketRateLimiter(long maxKeys, Duration idleExpiry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpiry)
+                .build();
+    }
+
+    /**
+     * Takes one token from the bucket of a key.
+     *
+     * @return the tokens left after this request when it is allowed, or the negated nanoseconds
+     *         until a token is available when it is rejected
+     */
+    public long tryAcquire(String key, RateLimit limit) {
+        return tryAcquire(key, limit, System.nanoTime() - originNanos);
+    }
+
+    long tryAcquire(String key, RateLimit limit, long nowNanos) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong());
+        long interval = limit.getEmissionIntervalNanos();
+        long capacity = limit.getCapacityNanos();
+
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, nowNanos) + interval;
+            long used = next - nowNanos;
+            if (used > capacity) {
+                return -(used - capacity);
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return (capacity - used) / interval;
+            }
+        }
+    }
+
+    public long estimatedSize() {
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * A sustained rate with a burst allowance, precomputed as the interval between two tokens and
+     * the time a full bucket covers.
+     */
+    public static final class RateLimit {
+
+        private final long emissionIntervalNanos;
+        private final long capacityNanos;
+        private final int burst;
+
+        public RateLimit(int requestsPerMinute, int burst) {
+            if (requestsPerMinute <= 0 || burst <= 0) {
+                throw new IllegalArgumentException("Rate limits need a positive rate and burst");
+            }
+            this.emissionIntervalNanos = Duration.ofMinutes(1).toNanos() / requestsPerMinute;
+            this.capacityNanos = emissionIntervalNanos * burst;
+            this.burst = burst;
+        }
+
+        public long getEmissionIntervalNanos() {
+            return emissionIntervalNanos;
+        }
+
+        public long getCapacityNanos() {
+            return capacityNanos;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+-- GCRA check that grants up to ARGV[3] tokens at once.
+-- KEYS[1]: bucket key, holding the theoretical arrival time in microseconds (Redis clock)
+-- ARGV[1]: emission interval in microseconds
+-- ARGV[2]: burst capacity in microseconds
+-- ARGV[3]: tokens requested
+-- Returns {granted, microseconds until the next token when nothing was granted}
+local interval = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+
+local tat = tonumber(redis.call('GET', KEYS[1])) or now
+if tat < now then
+    tat = now
+end
+
+local available = math.floor((now + capacity - tat) / interval)
+if available <= 0 then
+    return {0, tat + interval - capacity - now}
+end
+
+-- Extra tokens are only leased while at least half the burst is left, so one instance's lease
+-- does not starve requests arriving on the others
+local granted = 1
+if available * 2 >= math.floor(capacity / interval) then
+    granted = math.min(requested, available)
+end
+tat = tat + granted * interval
+redis.call('SET', KEYS[1], string.format('%.0f', tat), 'PX', math.ceil((tat - now) / 1000) + 1)
+return {granted, 0}
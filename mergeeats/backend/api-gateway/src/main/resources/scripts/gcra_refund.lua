@@ -0,0 +1,24 @@
+-- Gives unspent leased tokens back to a GCRA bucket.
+-- KEYS[1]: bucket key, holding the theoretical arrival time in microseconds (Redis clock)
+-- ARGV[1]: emission interval in microseconds
+-- ARGV[2]: tokens returned
+-- Returns the tokens returned
+local interval = tonumber(ARGV[1])
+local tokens = tonumber(ARGV[2])
+
+local tat = tonumber(redis.call('GET', KEYS[1]))
+if not tat then
+    return 0
+end
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+
+-- A bucket never holds more than a full burst, so the arrival time does not go below now
+tat = math.max(now, tat - tokens * interval)
+if tat <= now then
+    redis.call('DEL', KEYS[1])
+else
+    redis.call('SET', KEYS[1], string.format('%.0f', tat), 'PX', math.ceil((tat - now) / 1000) + 1)
+end
+return tokens
@@ -0,0 +1,80 @@
+package com.mergeeats.apigateway.ratelimit;
+
+import com.mergeeats.apigateway.ratelimit.TokenBucketRateLimiter.RateLimit;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rate limit checks spread over 100k distinct client keys from several threads, with the fixed
+ * window the gateway used to keep in two unbounded maps and with {@link TokenBucketRateLimiter}.
+ * A key bound below the key count measures the limiter while Caffeine is evicting.
+ *
+ * Run with: java -jar target/benchmarks.jar RateLimiterBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(4)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int MAX_REQUESTS_PER_MINUTE = 100;
+    private static final long RESET_INTERVAL = 60000;
+
+    @Param({"100000"})
+    private int keyCount;
+
+    @Param({"10000", "100000"})
+    private long maxKeys;
+
+    private String[] keys;
+    private TokenBucketRateLimiter limiter;
+    private RateLimit limit;
+
+    private Map<String, AtomicInteger> requestCounts;
+    private Map<String, Long> lastResetTime;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "order-service|ip:10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+        }
+        limiter = new TokenBucketRateLimiter(maxKeys, Duration.ofMinutes(2));
+        limit = new RateLimit(MAX_REQUESTS_PER_MINUTE, MAX_REQUESTS_PER_MINUTE);
+        requestCounts = new ConcurrentHashMap<>();
+        lastResetTime = new ConcurrentHashMap<>();
+    }
+
+    @Benchmark
+    public long tokenBucket() {
+        return limiter.tryAcquire(nextKey(), limit);
+    }
+
+    @Benchmark
+    public boolean legacyFixedWindow() {
+        String clientIp = nextKey();
+        long currentTime = System.currentTimeMillis();
+
+        Long lastReset = lastResetTime.get(clientIp);
+        if (lastReset == null || (currentTime - lastReset) > RESET_INTERVAL) {
+            requestCounts.put(clientIp, new AtomicInteger(0));
+            lastResetTime.put(clientIp, currentTime);
+        }
+
+        AtomicInteger counter = requestCounts.computeIfAbsent(clientIp, k -> new AtomicInteger(0));
+        return counter.incrementAndGet() > MAX_REQUESTS_PER_MINUTE;
+    }
+
+    private String nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+}
@@ -0,0 +1,135 @@
+package com.mergeeats.common.events;
+
+import com.mergeeats.common.enums.DeliveryStatus;
+import com.mergeeats.common.enums.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of the typed binary events ({@link EventSerializer}/{@link EventDeserializer})
+ * against the HashMap payloads the services used to send through spring-kafka's JSON serializer.
+ * The encoded sizes of both variants are printed once per trial.
+ *
+ * Run with: java -jar target/benchmarks.jar EventCodecBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    private static final String TOPIC = "order-events";
+
+    public enum EventKind {
+        ORDER_CREATED,
+        ORDERS_MERGED,
+        DELIVERY_STATUS,
+        PARTNER_LOCATION
+    }
+
+    @Param({"ORDER_CREATED", "ORDERS_MERGED", "DELIVERY_STATUS", "PARTNER_LOCATION"})
+    private EventKind kind;
+
+    private final EventSerializer binarySerializer = new EventSerializer();
+    private final EventDeserializer binaryDeserializer = new EventDeserializer();
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private final JsonDeserializer<Map> jsonDeserializer = new JsonDeserializer<>(Map.class, false);
+
+    private MergeEatsEvent event;
+    private Map<String, Object> legacyPayload;
+    private byte[] binaryBytes;
+    private byte[] jsonBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The binary format keeps millisecond precision
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        legacyPayload = new HashMap<>();
+
+        switch (kind) {
+            case ORDER_CREATED:
+                event = new OrderEvent("ORDER_CREATED", "65f1c0a2e4b0a1b2c3d4e5f6", "65f1c0a2e4b0a1b2c3d4e5aa",
+                        "65f1c0a2e4b0a1b2c3d4e5bb", OrderStatus.PENDING, new BigDecimal("24.50"), null, now);
+                legacyPayload.put("eventType", "ORDER_CREATED");
+                legacyPayload.put("orderId", "65f1c0a2e4b0a1b2c3d4e5f6");
+                legacyPayload.put("userId", "65f1c0a2e4b0a1b2c3d4e5aa");
+                legacyPayload.put("restaurantId", "65f1c0a2e4b0a1b2c3d4e5bb");
+                legacyPayload.put("status", OrderStatus.PENDING);
+                legacyPayload.put("totalAmount", new BigDecimal("24.50"));
+                break;
+            case ORDERS_MERGED: {
+                List<String> orderIds = List.of("65f1c0a2e4b0a1b2c3d4e501", "65f1c0a2e4b0a1b2c3d4e502",
+                        "65f1c0a2e4b0a1b2c3d4e503", "65f1c0a2e4b0a1b2c3d4e504");
+                event = new OrdersMergedEvent("MERGED_1710338722000_4821", "65f1c0a2e4b0a1b2c3d4e5bb", orderIds,
+                        "seed", 36, now);
+                legacyPayload.put("eventType", "ORDERS_MERGED");
+                legacyPayload.put("mergedOrderId", "MERGED_1710338722000_4821");
+                legacyPayload.put("orderIds", orderIds);
+                legacyPayload.put("orderCount", orderIds.size());
+                legacyPayload.put("clusteringStrategy", "seed");
+                legacyPayload.put("restaurantId", "65f1c0a2e4b0a1b2c3d4e5bb");
+                legacyPayload.put("estimatedTimeSavings", 36);
+                break;
+            }
+            case DELIVERY_STATUS:
+                event = new DeliveryEvent("delivery.status.updated", "65f1c0a2e4b0a1b2c3d4e5cc",
+                        "65f1c0a2e4b0a1b2c3d4e5f6", DeliveryStatus.IN_TRANSIT, now);
+                legacyPayload.put("eventType", "delivery.status.updated");
+                legacyPayload.put("deliveryId", "65f1c0a2e4b0a1b2c3d4e5cc");
+                legacyPayload.put("orderId", "65f1c0a2e4b0a1b2c3d4e5f6");
+                legacyPayload.put("status", DeliveryStatus.IN_TRANSIT);
+                break;
+            case PARTNER_LOCATION:
+                event = new PartnerLocationUpdatedEvent("65f1c0a2e4b0a1b2c3d4e5dd", "65f1c0a2e4b0a1b2c3d4e5ee",
+                        12.971598, 77.594562, now);
+                legacyPayload.put("partnerId", "65f1c0a2e4b0a1b2c3d4e5dd");
+                legacyPayload.put("userId", "65f1c0a2e4b0a1b2c3d4e5ee");
+                legacyPayload.put("latitude", 12.971598);
+                legacyPayload.put("longitude", 77.594562);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown event kind: " + kind);
+        }
+        legacyPayload.put("timestamp", LocalDateTime.now());
+
+        binaryBytes = binarySerializer.serialize(TOPIC, event);
+        jsonBytes = jsonSerializer.serialize(TOPIC, legacyPayload);
+        if (!event.equals(binaryDeserializer.deserialize(TOPIC, binaryBytes))) {
+            throw new IllegalStateException("Binary round trip changed the event: " + event);
+        }
+        System.out.printf("%n%s payload bytes: json=%d binary=%d (%.0f%% smaller)%n", kind, jsonBytes.length,
+                binaryBytes.length, 100.0 * (jsonBytes.length - binaryBytes.length) / jsonBytes.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, legacyPayload);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonDeserializer.deserialize(TOPIC, jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return binaryDeserializer.deserialize(TOPIC, binaryBytes);
+    }
+}
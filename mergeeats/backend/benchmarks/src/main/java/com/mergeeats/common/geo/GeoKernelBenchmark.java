@@ -0,0 +1,114 @@
+package com.mergeeats.common.geo;
+
+import com.mergeeats.common.models.Address;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a full distance matrix the way the services used to (per-pair haversine on boxed
+ * {@link Address} coordinates) and with {@link GeoKernel}, on the scalar and Vector API paths.
+ *
+ * Run with: java -jar target/benchmarks.jar GeoKernelBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Dmergeeats.geo.vector=false")
+public class GeoKernelBenchmark {
+
+    private static final double CENTER_LAT = 12.9716;
+    private static final double CENTER_LON = 77.5946;
+
+    @Param({"100", "1000"})
+    private int pointCount;
+
+    private List<Address> addresses;
+    private double[] latitudes;
+    private double[] longitudes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        addresses = new ArrayList<>(pointCount);
+        latitudes = new double[pointCount];
+        longitudes = new double[pointCount];
+
+        for (int i = 0; i < pointCount; i++) {
+            latitudes[i] = CENTER_LAT + (random.nextDouble() - 0.5) * 0.5;
+            longitudes[i] = CENTER_LON + (random.nextDouble() - 0.5) * 0.5;
+
+            Address address = new Address();
+            address.setLatitude(latitudes[i]);
+            address.setLongitude(longitudes[i]);
+            addresses.add(address);
+        }
+    }
+
+    @Benchmark
+    public double[][] boxedPerPair() {
+        double[][] matrix = new double[pointCount][pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            for (int j = 0; j < pointCount; j++) {
+                matrix[i][j] = legacyDistance(addresses.get(i), addresses.get(j));
+            }
+        }
+        return matrix;
+    }
+
+    @Benchmark
+    public double[][] primitivePerPair() {
+        double[][] matrix = new double[pointCount][pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            for (int j = 0; j < pointCount; j++) {
+                matrix[i][j] = GeoKernel.haversineKm(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+            }
+        }
+        return matrix;
+    }
+
+    @Benchmark
+    public double[][] kernelScalar() {
+        return GeoKernel.distanceMatrixKm(GeoPoints.of(latitudes, longitudes));
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public double[][] kernelVector() {
+        if (!GeoKernel.isVectorized()) {
+            throw new IllegalStateException("Vector API kernel not active");
+        }
+        return GeoKernel.distanceMatrixKm(GeoPoints.of(latitudes, longitudes));
+    }
+
+    /**
+     * The per-pair haversine on boxed coordinates that OrderMergingService used before GeoKernel.
+     */
+    private static double legacyDistance(Address addr1, Address addr2) {
+        if (addr1.getLatitude() == null || addr1.getLongitude() == null ||
+            addr2.getLatitude() == null || addr2.getLongitude() == null) {
+            return Double.MAX_VALUE;
+        }
+
+        double lat1 = Math.toRadians(addr1.getLatitude());
+        double lon1 = Math.toRadians(addr1.getLongitude());
+        double lat2 = Math.toRadians(addr2.getLatitude());
+        double lon2 = Math.toRadians(addr2.getLongitude());
+
+        double dlat = lat2 - lat1;
+        double dlon = lon2 - lon1;
+
+        double a = Math.sin(dlat / 2) * Math.sin(dlat / 2) +
+                   Math.cos(lat1) * Math.cos(lat2) *
+                   Math.sin(dlon / 2) * Math.sin(dlon / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return 6371 * c;
+    }
+}
@@ -0,0 +1,33 @@
+package com.mergeeats.common.geo;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link ChordKernel}. Lives in the benchmarks module so common-models
+ * builds without the incubator module; {@link GeoKernel} picks it up when it is on the classpath and
+ * the JVM was started with {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorChordKernel implements ChordKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void chordSquared(double x, double y, double z,
+                             double[] xs, double[] ys, double[] zs, int count, double[] out) {
+        int i = 0;
+        int bound = SPECIES.loopBound(count);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, i).sub(x);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, i).sub(y);
+            DoubleVector dz = DoubleVector.fromArray(SPECIES, zs, i).sub(z);
+            dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz)).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double dz = zs[i] - z;
+            out[i] = dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
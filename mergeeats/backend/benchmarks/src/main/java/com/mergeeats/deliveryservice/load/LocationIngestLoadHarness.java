@@ -0,0 +1,166 @@
+package com.mergeeats.deliveryservice.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load harness for the delivery location ingestion endpoint (PUT /deliveries/{id}/location).
+ *
+ * Simulates riders that each ping the position of one delivery at a fixed interval, moving a few
+ * metres per ping, and reports accepted pings per second and request latency percentiles. The
+ * deliveries must exist, since the service checks the first ping of every delivery.
+ *
+ * Run with:
+ * java -cp target/benchmarks.jar com.mergeeats.deliveryservice.load.LocationIngestLoadHarness \
+ *     --url http://localhost:8085/api/deliveries --ids-file delivery-ids.txt \
+ *     --interval-ms 2000 --duration-s 60 --max-in-flight 256 [--authorization "Bearer ..."]
+ *
+ * Leaving out --interval-ms (or passing 0) sends as fast as --max-in-flight allows, which gives the
+ * saturation throughput. Compare delivery.location.ingested with delivery.location.written on
+ * /actuator/metrics to see how much the buffer coalesces.
+ */
+public final class LocationIngestLoadHarness {
+
+    private LocationIngestLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String baseUrl = options.getOrDefault("url", "http://localhost:8085/api/deliveries");
+        long intervalMs = Long.parseLong(options.getOrDefault("interval-ms", "0"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration-s", "30"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "256"));
+        String authorization = options.get("authorization");
+
+        List<String> deliveryIds = readDeliveryIds(options);
+        if (deliveryIds.isEmpty()) {
+            throw new IllegalArgumentException("Pass delivery ids with --ids a,b,c or --ids-file <path>");
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ConcurrentLinkedQueue<Long> latenciesMicros = new ConcurrentLinkedQueue<>();
+
+        Random random = new Random(42);
+        double[][] positions = new double[deliveryIds.size()][];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new double[]{12.9716 + (random.nextDouble() - 0.5) * 0.2, 77.5946 + (random.nextDouble() - 0.5) * 0.2};
+        }
+
+        System.out.printf("Sending pings for %d deliveries for %ds (interval %s, max in flight %d)%n",
+                deliveryIds.size(), durationSeconds, intervalMs > 0 ? intervalMs + " ms" : "none", maxInFlight);
+
+        long start = System.nanoTime();
+        long end = start + Duration.ofSeconds(durationSeconds).toNanos();
+        long round = 0;
+        while (System.nanoTime() < end) {
+            long roundStart = System.nanoTime();
+            for (int i = 0; i < deliveryIds.size() && System.nanoTime() < end; i++) {
+                // Roughly 5 m per ping in a random direction
+                positions[i][0] += (random.nextDouble() - 0.5) * 0.0001;
+                positions[i][1] += (random.nextDouble() - 0.5) * 0.0001;
+                String body = String.format(Locale.ROOT, "{\"latitude\":%.6f,\"longitude\":%.6f}", positions[i][0], positions[i][1]);
+
+                HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + deliveryIds.get(i) + "/location"))
+                        .timeout(Duration.ofSeconds(10))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(body));
+                if (authorization != null) {
+                    request.header("Authorization", authorization);
+                }
+
+                inFlight.acquire();
+                long sentAt = System.nanoTime();
+                client.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            inFlight.release();
+                            latenciesMicros.add((System.nanoTime() - sentAt) / 1_000);
+                            if (error != null) {
+                                failed.incrementAndGet();
+                            } else if (response.statusCode() / 100 == 2) {
+                                accepted.incrementAndGet();
+                            } else {
+                                rejected.incrementAndGet();
+                            }
+                        });
+            }
+            round++;
+
+            if (intervalMs > 0) {
+                long sleepMs = intervalMs - (System.nanoTime() - roundStart) / 1_000_000;
+                if (sleepMs > 0) {
+                    Thread.sleep(sleepMs);
+                }
+            }
+        }
+
+        inFlight.acquire(maxInFlight);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long[] latencies = latenciesMicros.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(latencies);
+        System.out.printf("Rounds: %d, elapsed: %.1fs%n", round, elapsedSeconds);
+        System.out.printf("Accepted: %d (%.0f pings/s), rejected: %d, failed: %d%n",
+                accepted.get(), accepted.get() / elapsedSeconds, rejected.get(), failed.get());
+        if (latencies.length > 0) {
+            System.out.printf("Latency p50: %.2f ms, p99: %.2f ms, p99.9: %.2f ms, max: %.2f ms%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    latencies[latencies.length - 1] / 1000.0);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+
+    private static List<String> readDeliveryIds(Map<String, String> options) throws Exception {
+        List<String> ids = new ArrayList<>();
+        if (options.containsKey("ids")) {
+            for (String id : options.get("ids").split(",")) {
+                if (!id.isBlank()) {
+                    ids.add(id.trim());
+                }
+            }
+        }
+        if (options.containsKey("ids-file")) {
+            for (String line : Files.readAllLines(Path.of(options.get("ids-file")))) {
+                if (!line.isBlank()) {
+                    ids.add(line.trim());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,187 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Address;
+import com.mergeeats.common.models.Order;
+import com.mergeeats.common.models.Restaurant;
+import com.mergeeats.orderservice.client.RestaurantClient;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Offline fixtures for the merge-engine benchmarks: an {@link OrderMergingService} wired by hand
+ * (no Spring, Mongo, Kafka or restaurant-service) and synthetic city-scale order distributions.
+ */
+public final class MergeBenchmarkFixtures {
+
+    static final double CITY_LAT = 12.9716;
+    static final double CITY_LON = 77.5946;
+    static final double MAX_DISTANCE_KM = 2.0;
+    static final int MAX_ORDERS_PER_MERGE = 5;
+    static final long ROUTE_TIME_BUDGET_MS = 20;
+
+    private static final double KM_PER_DEGREE = 111.2;
+
+    /**
+     * Synthetic order distributions over a 20 km x 20 km city.
+     */
+    public enum Distribution {
+        /** One restaurant in the centre, drop-offs spread evenly over the city. */
+        UNIFORM,
+        /** One restaurant; most drop-offs fall into a few dense residential/office hotspots. */
+        HOTSPOT,
+        /** Fifty restaurants across the city, each serving drop-offs around itself. */
+        MULTI_RESTAURANT
+    }
+
+    /**
+     * Candidate orders grouped by restaurant, as the merge scheduler hands them over, together
+     * with the restaurant locations.
+     */
+    static final class CityOrders {
+        final Map<String, List<Order>> ordersByRestaurant = new LinkedHashMap<>();
+        final Map<String, Restaurant> restaurants = new HashMap<>();
+    }
+
+    private MergeBenchmarkFixtures() {
+    }
+
+    static OrderMergingService newMergingService(OrderClusteringStrategy strategy, Map<String, Restaurant> restaurants)
+            throws ReflectiveOperationException {
+        RestaurantDirectory directory = new RestaurantDirectory();
+        RestaurantClient client = restaurants::get;
+        setField(RestaurantDirectory.class, directory, "restaurantClient", client);
+
+        OrderMergingService service = new OrderMergingService();
+        setField(OrderMergingService.class, service, "maxDistanceKm", MAX_DISTANCE_KM);
+        setField(OrderMergingService.class, service, "maxOrdersPerMerge", MAX_ORDERS_PER_MERGE);
+        setField(OrderMergingService.class, service, "routeTimeBudgetMs", ROUTE_TIME_BUDGET_MS);
+        setField(OrderMergingService.class, service, "clusteringStrategy", strategy);
+        setField(OrderMergingService.class, service, "restaurantDirectory", directory);
+        return service;
+    }
+
+    static OrderClusteringStrategy newStrategy(String name) {
+        switch (name) {
+            case "seed":
+                return new SeedClusteringStrategy();
+            case "dbscan":
+                return new DbscanClusteringStrategy();
+            default:
+                throw new IllegalArgumentException("Unknown clustering strategy: " + name);
+        }
+    }
+
+    static CityOrders generate(Distribution distribution, int orderCount, long seed) {
+        Random random = new Random(seed);
+        CityOrders city = new CityOrders();
+        LocalDateTime now = LocalDateTime.now();
+
+        switch (distribution) {
+            case UNIFORM: {
+                Restaurant restaurant = addRestaurant(city, "restaurant-0", CITY_LAT, CITY_LON);
+                for (int i = 0; i < orderCount; i++) {
+                    addOrder(city, restaurant, i, offsetLat(CITY_LAT, uniformKm(random, 10)),
+                            offsetLon(CITY_LAT, CITY_LON, uniformKm(random, 10)), now, random);
+                }
+                break;
+            }
+            case HOTSPOT: {
+                Restaurant restaurant = addRestaurant(city, "restaurant-0", CITY_LAT, CITY_LON);
+                double[][] hotspots = new double[5][2];
+                for (double[] hotspot : hotspots) {
+                    hotspot[0] = uniformKm(random, 7);
+                    hotspot[1] = uniformKm(random, 7);
+                }
+                for (int i = 0; i < orderCount; i++) {
+                    double northKm;
+                    double eastKm;
+                    if (random.nextDouble() < 0.8) {
+                        double[] hotspot = hotspots[random.nextInt(hotspots.length)];
+                        northKm = hotspot[0] + random.nextGaussian() * 0.8;
+                        eastKm = hotspot[1] + random.nextGaussian() * 0.8;
+                    } else {
+                        northKm = uniformKm(random, 10);
+                        eastKm = uniformKm(random, 10);
+                    }
+                    addOrder(city, restaurant, i, offsetLat(CITY_LAT, northKm),
+                            offsetLon(CITY_LAT, CITY_LON, eastKm), now, random);
+                }
+                break;
+            }
+            case MULTI_RESTAURANT: {
+                List<Restaurant> restaurants = new ArrayList<>();
+                for (int r = 0; r < 50; r++) {
+                    restaurants.add(addRestaurant(city, "restaurant-" + r,
+                            offsetLat(CITY_LAT, uniformKm(random, 10)), offsetLon(CITY_LAT, CITY_LON, uniformKm(random, 10))));
+                }
+                for (int i = 0; i < orderCount; i++) {
+                    // Skew demand: low-numbered restaurants are the popular ones
+                    int pick = (int) Math.floor(Math.pow(random.nextDouble(), 2) * restaurants.size());
+                    Restaurant restaurant = restaurants.get(pick);
+                    Address pickup = restaurant.getAddress();
+                    addOrder(city, restaurant, i,
+                            offsetLat(pickup.getLatitude(), random.nextGaussian() * 3),
+                            offsetLon(pickup.getLatitude(), pickup.getLongitude(), random.nextGaussian() * 3), now, random);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+
+        return city;
+    }
+
+    private static Restaurant addRestaurant(CityOrders city, String restaurantId, double latitude, double longitude) {
+        Address address = new Address();
+        address.setLatitude(latitude);
+        address.setLongitude(longitude);
+
+        Restaurant restaurant = new Restaurant();
+        restaurant.setRestaurantId(restaurantId);
+        restaurant.setAddress(address);
+        city.restaurants.put(restaurantId, restaurant);
+        city.ordersByRestaurant.put(restaurantId, new ArrayList<>());
+        return restaurant;
+    }
+
+    private static void addOrder(CityOrders city, Restaurant restaurant, int index, double latitude, double longitude,
+                                 LocalDateTime now, Random random) {
+        Address address = new Address();
+        address.setLatitude(latitude);
+        address.setLongitude(longitude);
+
+        Order order = new Order();
+        order.setOrderId("order-" + index);
+        order.setRestaurantId(restaurant.getRestaurantId());
+        order.setDeliveryAddress(address);
+        // Candidates span the 15 minute merge window
+        order.setOrderTime(now.minusSeconds(random.nextInt(15 * 60)));
+        city.ordersByRestaurant.get(restaurant.getRestaurantId()).add(order);
+    }
+
+    private static double uniformKm(Random random, double halfSpanKm) {
+        return (random.nextDouble() * 2 - 1) * halfSpanKm;
+    }
+
+    private static double offsetLat(double latitude, double northKm) {
+        return latitude + northKm / KM_PER_DEGREE;
+    }
+
+    private static double offsetLon(double latitude, double longitude, double eastKm) {
+        return longitude + eastKm / (KM_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+    }
+
+    private static void setField(Class<?> type, Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,98 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Order;
+import com.mergeeats.orderservice.service.MergeBenchmarkFixtures.CityOrders;
+import com.mergeeats.orderservice.service.MergeBenchmarkFixtures.Distribution;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the merge engine stages on synthetic city-scale order sets, run fully offline.
+ *
+ * - cluster: clustering of every restaurant's candidates with the selected strategy
+ * - scoreEfficiency: merge efficiency of every candidate cluster
+ * - routeDistance: optimized route distance of every candidate cluster
+ * - planPass: a whole merge pass as the scheduler runs it, minus the Mongo write and Kafka events
+ *
+ * Sample-time mode reports p50/p99/p99.9 per operation. To track regressions per build, keep the
+ * JSON output, e.g.
+ * java -jar target/benchmarks.jar MergeEngineBenchmark -rf json -rff merge-engine.json
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MergeEngineBenchmark {
+
+    @Param({"UNIFORM", "HOTSPOT", "MULTI_RESTAURANT"})
+    private Distribution distribution;
+
+    @Param({"500", "5000"})
+    private int orderCount;
+
+    @Param({"seed", "dbscan"})
+    private String strategy;
+
+    private OrderMergingService mergingService;
+    private List<List<Order>> candidateGroups;
+    private List<List<Order>> candidateClusters;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        CityOrders city = MergeBenchmarkFixtures.generate(distribution, orderCount, 42);
+        mergingService = MergeBenchmarkFixtures.newMergingService(
+                MergeBenchmarkFixtures.newStrategy(strategy), city.restaurants);
+        candidateGroups = new ArrayList<>(city.ordersByRestaurant.values());
+
+        // The clusters a merge pass would score: clustered, split to max-orders-per-merge, 2+ orders
+        candidateClusters = new ArrayList<>();
+        for (List<Order> group : candidateGroups) {
+            List<List<Order>> split = new ArrayList<>();
+            for (List<Order> cluster : mergingService.clusterOrdersByLocation(group)) {
+                mergingService.splitOversizedCluster(cluster, split);
+            }
+            for (List<Order> cluster : split) {
+                if (cluster.size() > 1) {
+                    candidateClusters.add(cluster);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void cluster(Blackhole blackhole) {
+        for (List<Order> group : candidateGroups) {
+            blackhole.consume(mergingService.clusterOrdersByLocation(group));
+        }
+    }
+
+    @Benchmark
+    public double scoreEfficiency() {
+        double total = 0.0;
+        for (List<Order> cluster : candidateClusters) {
+            total += mergingService.calculateMergeEfficiency(cluster);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double routeDistance() {
+        double total = 0.0;
+        for (List<Order> cluster : candidateClusters) {
+            total += mergingService.calculateOptimizedRouteDistance(cluster);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Object planPass() {
+        // Planning only sets merge fields on the orders, so repeated passes see the same input
+        return mergingService.planMerges(candidateGroups);
+    }
+}
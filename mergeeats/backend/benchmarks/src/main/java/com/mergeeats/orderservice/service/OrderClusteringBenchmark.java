@@ -0,0 +1,108 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Address;
+import com.mergeeats.common.models.Order;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the grid-indexed seed clustering in {@link OrderMergingService} with the pairwise scan
+ * it replaced, and with the DBSCAN strategy. Orders are spread uniformly over a 60 km x 60 km
+ * metro area.
+ *
+ * Run with: java -jar target/benchmarks.jar OrderClusteringBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class OrderClusteringBenchmark {
+
+    private static final double CENTER_LAT = 12.9716;
+    private static final double CENTER_LON = 77.5946;
+    private static final double SPAN_KM = 60.0;
+    private static final double MAX_DISTANCE_KM = 2.0;
+
+    @Param({"1000", "10000", "100000"})
+    private int orderCount;
+
+    private OrderMergingService mergingService;
+    private DbscanClusteringStrategy dbscan;
+    private List<Order> orders;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mergingService = MergeBenchmarkFixtures.newMergingService(new SeedClusteringStrategy(), new HashMap<>());
+        dbscan = new DbscanClusteringStrategy();
+
+        Random random = new Random(42);
+        double latSpan = SPAN_KM / 111.0;
+        double lonSpan = SPAN_KM / (111.0 * Math.cos(Math.toRadians(CENTER_LAT)));
+
+        orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            Address address = new Address();
+            address.setLatitude(CENTER_LAT + (random.nextDouble() - 0.5) * latSpan);
+            address.setLongitude(CENTER_LON + (random.nextDouble() - 0.5) * lonSpan);
+
+            Order order = new Order();
+            order.setOrderId("order-" + i);
+            order.setRestaurantId("restaurant-1");
+            order.setDeliveryAddress(address);
+            orders.add(order);
+        }
+
+        List<List<Order>> indexed = mergingService.clusterOrdersByLocation(orders);
+        List<List<Order>> pairwise = pairwiseClusters(orders);
+        if (!indexed.equals(pairwise)) {
+            throw new IllegalStateException("Grid-indexed clustering diverged from the pairwise scan");
+        }
+    }
+
+    @Benchmark
+    public void gridIndexed(Blackhole blackhole) {
+        blackhole.consume(mergingService.clusterOrdersByLocation(orders));
+    }
+
+    @Benchmark
+    public void dbscan(Blackhole blackhole) {
+        blackhole.consume(dbscan.cluster(orders, MAX_DISTANCE_KM));
+    }
+
+    @Benchmark
+    public void pairwise(Blackhole blackhole) {
+        blackhole.consume(pairwiseClusters(orders));
+    }
+
+    /**
+     * The O(n^2) seed clustering that OrderMergingService used before the grid index.
+     */
+    private List<List<Order>> pairwiseClusters(List<Order> input) {
+        List<List<Order>> clusters = new ArrayList<>();
+        List<Order> unprocessed = new ArrayList<>(input);
+
+        while (!unprocessed.isEmpty()) {
+            Order seed = unprocessed.remove(0);
+            List<Order> cluster = new ArrayList<>();
+            cluster.add(seed);
+
+            Iterator<Order> iterator = unprocessed.iterator();
+            while (iterator.hasNext()) {
+                Order candidate = iterator.next();
+                if (mergingService.isWithinDeliveryRadius(seed, candidate)) {
+                    cluster.add(candidate);
+                    iterator.remove();
+                }
+            }
+
+            clusters.add(cluster);
+        }
+
+        return clusters;
+    }
+}
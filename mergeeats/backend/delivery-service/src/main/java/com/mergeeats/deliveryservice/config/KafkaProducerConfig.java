@@ -0,0 +1,40 @@
+package com.mergeeats.deliveryservice.config;
+
+import com.mergeeats.common.events.EventSerializer;
+import com.mergeeats.common.events.MergeEatsEvent;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Typed events go out in the compact binary event format; everything else (partner documents, batch
+ * assignments) keeps using JSON. The producer settings still come from spring.kafka.* properties.
+ */
+@Configuration
+public class KafkaProducerConfig {
+
+    @Bean
+    public ProducerFactory<String, Object> producerFactory(KafkaProperties kafkaProperties,
+                                                           ObjectProvider<SslBundles> sslBundles) {
+        // Delegates are matched in insertion order, so the catch-all JSON serializer has to come last
+        Map<Class<?>, Serializer<?>> delegates = new LinkedHashMap<>();
+        delegates.put(MergeEatsEvent.class, new EventSerializer());
+        delegates.put(Object.class, new JsonSerializer<>());
+
+        return new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()),
+                new StringSerializer(),
+                new DelegatingByTypeSerializer(delegates, true));
+    }
+}
@@ -0,0 +1,138 @@
+package com.mergeeats.deliveryservice.config;
+
+import com.mergeeats.common.models.Delivery;
+import com.mergeeats.common.models.DeliveryPartner;
+import com.mergeeats.deliveryservice.service.DeliveryTrackingPublisher;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Guards the tracking STOMP endpoint. CONNECT must carry the user's JWT in an Authorization
+ * header, and every SUBSCRIBE to /topic/deliveries.{deliveryId} is only let through for the
+ * delivery's customer or its assigned partner, since the pushes carry live locations.
+ */
+@Component
+public class TrackingChannelInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingChannelInterceptor.class);
+
+    @Value("${jwt.secret:defaultSecretKeyForDevelopmentOnly}")
+    private String jwtSecret;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Immutable and thread-safe, built once
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        switch (accessor.getCommand()) {
+            case CONNECT:
+                accessor.setUser(authenticate(accessor.getFirstNativeHeader("Authorization")));
+                break;
+            case SUBSCRIBE:
+                authorizeSubscription(accessor.getUser(), accessor.getDestination());
+                break;
+            case SEND:
+                if (accessor.getUser() == null) {
+                    throw new AccessDeniedException("Not authenticated");
+                }
+                break;
+            default:
+                break;
+        }
+        return message;
+    }
+
+    private Principal authenticate(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new AccessDeniedException("No token provided");
+        }
+
+        Claims claims;
+        try {
+            claims = jwtParser.parseClaimsJws(authorization.substring(7)).getBody();
+        } catch (RuntimeException e) {
+            throw new AccessDeniedException("Invalid token");
+        }
+
+        // Tokens issued by the user service carry the id in a claim and the email as subject
+        String userId = claims.get("userId", String.class);
+        if (userId == null) {
+            userId = claims.getSubject();
+        }
+        return new UsernamePasswordAuthenticationToken(userId, null, List.of());
+    }
+
+    private void authorizeSubscription(Principal user, String destination) {
+        if (user == null) {
+            throw new AccessDeniedException("Not authenticated");
+        }
+        if (destination == null || !destination.startsWith(DeliveryTrackingPublisher.TOPIC_PREFIX)) {
+            throw new AccessDeniedException("Unknown destination: " + destination);
+        }
+
+        String deliveryId = destination.substring(DeliveryTrackingPublisher.TOPIC_PREFIX.length());
+        if (!canTrack(user.getName(), deliveryId)) {
+            logger.warn("User {} denied tracking of delivery {}", user.getName(), deliveryId);
+            throw new AccessDeniedException("Not allowed to track delivery " + deliveryId);
+        }
+    }
+
+    // Only the customer who ordered and the partner carrying the delivery may follow it
+    private boolean canTrack(String userId, String deliveryId) {
+        Query deliveryQuery = Query.query(Criteria.where("_id").is(deliveryId));
+        deliveryQuery.fields().include("customerId", "deliveryPartnerId");
+        Delivery delivery = mongoTemplate.findOne(deliveryQuery, Delivery.class);
+        if (delivery == null) {
+            return false;
+        }
+        if (userId.equals(delivery.getCustomerId())) {
+            return true;
+        }
+        if (delivery.getDeliveryPartnerId() == null) {
+            return false;
+        }
+
+        Query partnerQuery = Query.query(Criteria.where("_id").is(delivery.getDeliveryPartnerId()));
+        partnerQuery.fields().include("userId");
+        DeliveryPartner partner = mongoTemplate.findOne(partnerQuery, DeliveryPartner.class);
+        return partner != null && userId.equals(partner.getUserId());
+    }
+}
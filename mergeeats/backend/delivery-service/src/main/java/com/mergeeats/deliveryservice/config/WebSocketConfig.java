@@ -1 +1,107 @@
- 
\ No newline at end of file
+package com.mergeeats.deliveryservice.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+/**
+ * STOMP endpoint for live delivery tracking. Clients subscribe to /topic/deliveries.{deliveryId}.
+ *
+ * With the relay disabled, the in-memory broker serves the subscribers of this instance. With
+ * several instances, enable the relay so that every instance publishes to, and every client
+ * subscribes through, a shared STOMP broker such as RabbitMQ.
+ *
+ * Only the configured origins may open the endpoint, and {@link TrackingChannelInterceptor}
+ * authenticates every connection and authorizes every subscription.
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    @Value("${delivery.websocket.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${delivery.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${delivery.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${delivery.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${delivery.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${delivery.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${delivery.websocket.send-buffer-size-kb:512}")
+    private int sendBufferSizeKb;
+
+    @Value("${delivery.websocket.outbound-threads:8}")
+    private int outboundThreads;
+
+    @Value("${delivery.websocket.allowed-origins:http://localhost:3000}")
+    private String[] allowedOrigins;
+
+    @Autowired
+    private TrackingChannelInterceptor trackingChannelInterceptor;
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry config) {
+        if (relayEnabled) {
+            config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+        } else {
+            ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+            heartbeatScheduler.setPoolSize(1);
+            heartbeatScheduler.setThreadNamePrefix("ws-heartbeat-");
+            heartbeatScheduler.initialize();
+
+            config.enableSimpleBroker("/topic")
+                    .setHeartbeatValue(new long[]{10000, 10000})
+                    .setTaskScheduler(heartbeatScheduler);
+        }
+        config.setApplicationDestinationPrefixes("/app");
+    }
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws/deliveries")
+                .setAllowedOriginPatterns(allowedOrigins)
+                .withSockJS();
+
+        registry.addEndpoint("/ws/deliveries")
+                .setAllowedOriginPatterns(allowedOrigins);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A slow client is disconnected instead of buffering pushes for it without limit
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeKb * 1024);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(trackingChannelInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(outboundThreads).maxPoolSize(outboundThreads);
+    }
+}
@@ -1,6 +1,7 @@
 package com.mergeeats.deliveryservice.controller;
 
 import com.mergeeats.common.models.Delivery;
+import com.mergeeats.common.models.DeliveryUpdate;
 import com.mergeeats.common.enums.DeliveryStatus;
 import com.mergeeats.deliveryservice.service.DeliveryService;
 import com.mergeeats.deliveryservice.dto.CreateDeliveryRequest;
@@ -17,6 +18,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -313,6 +315,36 @@ public class DeliveryController {
         }
     }
 
+    @GetMapping("/{deliveryId}/eta")
+    @Operation(summary = "Get delivery ETA", description = "Gets the live estimated delivery time of a delivery")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "ETA retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Delivery not found or finished")
+    })
+    public ResponseEntity<Map<String, Object>> getDeliveryEta(
+            @Parameter(description = "Delivery ID") @PathVariable String deliveryId) {
+        try {
+            Map<String, Object> eta = deliveryService.getDeliveryEta(deliveryId);
+            if (eta != null) {
+                return ResponseEntity.ok(eta);
+            }
+            return ResponseEntity.notFound().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/{deliveryId}/tracking")
+    @Operation(summary = "Get tracking history", description = "Gets the status history of a delivery, newest first, one page at a time")
+    @ApiResponse(responseCode = "200", description = "Tracking history retrieved successfully")
+    public ResponseEntity<Page<DeliveryUpdate>> getTrackingHistory(
+            @Parameter(description = "Delivery ID") @PathVariable String deliveryId,
+            @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size) {
+        Page<DeliveryUpdate> history = deliveryService.getTrackingHistory(deliveryId, page, size);
+        return ResponseEntity.ok(history);
+    }
+
     @PutMapping("/{deliveryId}/cancel")
     @Operation(summary = "Cancel delivery", description = "Cancels a delivery with a reason")
     @ApiResponses(value = {
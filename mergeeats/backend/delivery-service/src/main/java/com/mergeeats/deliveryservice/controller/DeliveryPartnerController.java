@@ -5,6 +5,7 @@ import com.mergeeats.common.models.DeliveryPartner.AvailabilityStatus;
 import com.mergeeats.common.models.DeliveryPartner.VehicleType;
 import com.mergeeats.common.models.Address;
 import com.mergeeats.deliveryservice.service.DeliveryPartnerService;
+import com.mergeeats.deliveryservice.service.PartnerLeaderboard;
 import com.mergeeats.deliveryservice.dto.RegisterDeliveryPartnerRequest;
 import com.mergeeats.deliveryservice.dto.UpdateLocationRequest;
 import io.swagger.v3.oas.annotations.Operation;
@@ -279,6 +280,21 @@ public class DeliveryPartnerController {
         return ResponseEntity.ok(partners);
     }
 
+    @GetMapping("/{partnerId}/rank")
+    @Operation(summary = "Get partner rank", description = "Retrieve the position of a partner on the performance leaderboard")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rank retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Partner is not ranked")
+    })
+    public ResponseEntity<PartnerLeaderboard.Ranking> getPartnerRanking(
+            @Parameter(description = "Partner ID", required = true) @PathVariable String partnerId) {
+        PartnerLeaderboard.Ranking ranking = deliveryPartnerService.getPartnerRanking(partnerId);
+        if (ranking == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ranking);
+    }
+
     // Verification and Management
     @PostMapping("/{partnerId}/verify")
     @Operation(summary = "Verify delivery partner", description = "Verify a delivery partner after document validation")
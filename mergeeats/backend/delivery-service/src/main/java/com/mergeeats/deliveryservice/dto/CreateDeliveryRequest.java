@@ -20,13 +20,15 @@ public class CreateDeliveryRequest {
     @NotBlank(message = "Restaurant ID is required")
     private String restaurantId;
 
-    @Schema(example = "123 Main St, City, State 12345")
-    @NotBlank(message = "Pickup address is required")
-    private String pickupAddress;
-
-    @Schema(example = "456 Oak Ave, City, State 12345")
-    @NotBlank(message = "Delivery address is required")
-    private String deliveryAddress;
+    @Schema(example = "{\"street\":\"123 Main St\",\"city\":\"New York\",\"state\":\"NY\",\"postalCode\":\"10001\",\"country\":\"USA\"}")
+    @NotNull(message = "Pickup address is required")
+    @Valid
+    private Address pickupAddress;
+
+    @Schema(example = "{\"street\":\"456 Oak Ave\",\"city\":\"New York\",\"state\":\"NY\",\"postalCode\":\"10019\",\"country\":\"USA\"}")
+    @NotNull(message = "Delivery address is required")
+    @Valid
+    private Address deliveryAddress;
 
     @Schema(example = "40.7128")
     @NotNull(message = "Pickup latitude is required")
@@ -7,6 +7,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +32,8 @@ public interface DeliveryPartnerRepository extends MongoRepository<DeliveryPartn
     
     List<DeliveryPartner> findByAvailabilityStatusAndIsActiveTrueAndIsVerifiedTrue(AvailabilityStatus status);
     
+    List<DeliveryPartner> findByAvailabilityStatusInAndIsActiveTrueAndIsVerifiedTrue(Collection<AvailabilityStatus> statuses);
+    
     @Query("{ 'availabilityStatus': ?0, 'isActive': true, 'isVerified': true, 'activeOrderIds': { $size: { $lt: ?1 } } }")
     List<DeliveryPartner> findAvailablePartnersWithCapacity(AvailabilityStatus status, int maxOrders);
 
@@ -42,8 +42,8 @@ public interface DeliveryRepository extends MongoRepository<Delivery, String> {
     // Find deliveries by estimated delivery time
     List<Delivery> findByEstimatedDeliveryTimeBefore(LocalDateTime time);
 
-    // Find overdue deliveries
-    @Query("{'estimatedDeliveryTime': {'$lt': ?0}, 'status': {'$in': ['ASSIGNED', 'PICKED_UP', 'IN_TRANSIT']}}")
+    // Find overdue deliveries (served by the status/estimatedDeliveryTime index)
+    @Query("{'status': {'$in': ['ASSIGNED', 'ACCEPTED', 'PICKED_UP', 'IN_TRANSIT']}, 'estimatedDeliveryTime': {'$lt': ?0}}")
     List<Delivery> findOverdueDeliveries(LocalDateTime currentTime);
 
     // Find deliveries for batch assignment
@@ -0,0 +1,14 @@
+package com.mergeeats.deliveryservice.repository;
+
+import com.mergeeats.common.models.DeliveryUpdate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeliveryUpdateRepository extends MongoRepository<DeliveryUpdate, String> {
+
+    // Tracking history of a delivery, served from the time-series bucket of that delivery
+    Page<DeliveryUpdate> findByDeliveryId(String deliveryId, Pageable pageable);
+}
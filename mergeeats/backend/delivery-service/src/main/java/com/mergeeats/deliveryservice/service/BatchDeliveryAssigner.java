@@ -0,0 +1,333 @@
+package com.mergeeats.deliveryservice.service;
+
+import com.mergeeats.common.enums.DeliveryStatus;
+import com.mergeeats.common.events.DeliveryEvent;
+import com.mergeeats.common.events.PartnerOrderEvent;
+import com.mergeeats.common.geo.GeoKernel;
+import com.mergeeats.common.models.Address;
+import com.mergeeats.common.models.Delivery;
+import com.mergeeats.common.models.DeliveryPartner;
+import com.mergeeats.common.models.DeliveryUpdate;
+import com.mergeeats.deliveryservice.repository.DeliveryPartnerRepository;
+import com.mergeeats.deliveryservice.repository.DeliveryRepository;
+import com.mergeeats.deliveryservice.service.PartnerLocationIndex.NearbyPartner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Periodically assigns the PENDING deliveries left over by auto-assignment as a batch.
+ *
+ * Deliveries are grouped into square zones by pickup location. For each zone, the nearest partners
+ * that can take an order are gathered from the {@link PartnerLocationIndex} and a minimum-cost
+ * assignment over the pickup ETA is solved, so a partner goes to the delivery where the whole zone
+ * gains most rather than to whichever delivery asked first. Each partner receives at most one
+ * delivery per run. All assignments of a run are committed with one bulk write per collection.
+ */
+@Component
+public class BatchDeliveryAssigner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchDeliveryAssigner.class);
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private DeliveryPartnerRepository deliveryPartnerRepository;
+
+    @Autowired
+    private DeliveryPartnerService deliveryPartnerService;
+
+    @Autowired
+    private PartnerLocationIndex partnerLocationIndex;
+
+    @Autowired
+    private PartnerMatchingEngine partnerMatchingEngine;
+
+    @Autowired
+    private DeliveryTrackingService deliveryTrackingService;
+
+    @Autowired
+    private DeliveryTrackingPublisher deliveryTrackingPublisher;
+
+    @Autowired
+    private DeliveryEtaService deliveryEtaService;
+
+    @Autowired
+    private DeliveryOverdueMonitor deliveryOverdueMonitor;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${delivery.batch-assignment.enabled:true}")
+    private boolean enabled;
+
+    @Value("${delivery.batch-assignment.zone-size-km:5.0}")
+    private double zoneSizeKm;
+
+    @Value("${delivery.batch-assignment.candidates-per-delivery:8}")
+    private int candidatesPerDelivery;
+
+    @Value("${delivery.assignment.max-distance-km:10.0}")
+    private double maxAssignmentDistance;
+
+    private static final class PlannedAssignment {
+
+        final Delivery delivery;
+        final DeliveryPartner partner;
+
+        PlannedAssignment(Delivery delivery, DeliveryPartner partner) {
+            this.delivery = delivery;
+            this.partner = partner;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.batch-assignment.interval-ms:10000}")
+    public void assignPendingDeliveries() {
+        if (!enabled) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Map<Long, List<Delivery>> zones = groupByZone(deliveryRepository.findByStatus(DeliveryStatus.PENDING));
+            if (zones.isEmpty()) {
+                return;
+            }
+
+            // A partner near a zone border is a candidate in both zones but is only given out once
+            Set<String> takenPartnerIds = new HashSet<>();
+            List<PlannedAssignment> planned = new ArrayList<>();
+            for (List<Delivery> zone : zones.values()) {
+                planned.addAll(planZone(zone, takenPartnerIds));
+            }
+
+            int committed = commit(planned);
+            if (committed > 0) {
+                logger.info("Batch assignment assigned {} deliveries across {} zones", committed, zones.size());
+            }
+        } catch (Exception e) {
+            logger.error("Batch assignment run failed: {}", e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("delivery.batch-assignment.duration"));
+        }
+    }
+
+    private Map<Long, List<Delivery>> groupByZone(List<Delivery> deliveries) {
+        double zoneSizeDegrees = Math.toDegrees(zoneSizeKm / GeoKernel.EARTH_RADIUS_KM);
+        Map<Long, List<Delivery>> zones = new LinkedHashMap<>();
+        for (Delivery delivery : deliveries) {
+            Address pickup = delivery.getPickupAddress();
+            if (pickup == null || pickup.getLatitude() == null || pickup.getLongitude() == null) {
+                continue;
+            }
+            long latZone = (long) Math.floor((pickup.getLatitude() + 90.0) / zoneSizeDegrees);
+            long lonZone = (long) Math.floor((pickup.getLongitude() + 180.0) / zoneSizeDegrees);
+            zones.computeIfAbsent((latZone << 32) | (lonZone & 0xffffffffL), key -> new ArrayList<>()).add(delivery);
+        }
+        return zones;
+    }
+
+    /**
+     * Solves one zone. Only each delivery's nearest candidates are priced; every other pair is
+     * infeasible, which keeps the cost matrix small and the result local.
+     */
+    private List<PlannedAssignment> planZone(List<Delivery> deliveries, Set<String> takenPartnerIds) {
+        Map<String, Integer> columnOfPartner = new HashMap<>();
+        List<DeliveryPartner> partners = new ArrayList<>();
+        List<Map<Integer, Double>> etaByDelivery = new ArrayList<>(deliveries.size());
+
+        for (Delivery delivery : deliveries) {
+            Address pickup = delivery.getPickupAddress();
+            List<NearbyPartner> nearby = partnerLocationIndex.findNearest(pickup.getLatitude(), pickup.getLongitude(),
+                    candidatesPerDelivery, maxAssignmentDistance,
+                    partner -> partnerMatchingEngine.canTakeOrder(partner) && !takenPartnerIds.contains(partner.getPartnerId()));
+
+            Map<Integer, Double> etas = new HashMap<>();
+            for (NearbyPartner candidate : nearby) {
+                DeliveryPartner partner = candidate.getPartner();
+                Integer column = columnOfPartner.get(partner.getPartnerId());
+                if (column == null) {
+                    column = partners.size();
+                    columnOfPartner.put(partner.getPartnerId(), column);
+                    partners.add(partner);
+                }
+                etas.put(column, partnerMatchingEngine.estimatePickupMinutes(partner.getVehicleType(), candidate.getDistanceKm()));
+            }
+            etaByDelivery.add(etas);
+        }
+
+        if (partners.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        double[][] cost = new double[deliveries.size()][partners.size()];
+        for (int i = 0; i < deliveries.size(); i++) {
+            for (int j = 0; j < partners.size(); j++) {
+                cost[i][j] = etaByDelivery.get(i).getOrDefault(j, MinCostAssignment.INFEASIBLE);
+            }
+        }
+
+        int[] assignment = MinCostAssignment.solve(cost);
+        List<PlannedAssignment> planned = new ArrayList<>();
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                DeliveryPartner partner = partners.get(assignment[i]);
+                takenPartnerIds.add(partner.getPartnerId());
+                planned.add(new PlannedAssignment(deliveries.get(i), partner));
+            }
+        }
+        return planned;
+    }
+
+    /**
+     * Writes the planned assignments. Partners are reserved first, with the same capacity-guarded
+     * update as {@link DeliveryPartnerService#assignOrder}, so a partner that filled up since the
+     * index snapshot is not overbooked. Only deliveries whose partner was reserved switch to
+     * ASSIGNED, and only if they are still PENDING; the slot of a delivery that auto-assignment
+     * picked up in the meantime is released again.
+     */
+    private int commit(List<PlannedAssignment> planned) {
+        if (planned.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PlannedAssignment> reserved = reservePartners(planned, now);
+        if (reserved.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations deliveryUpdates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Delivery.class);
+        for (PlannedAssignment assignment : reserved) {
+            Query query = Query.query(Criteria.where("_id").is(assignment.delivery.getDeliveryId())
+                    .and("status").is(DeliveryStatus.PENDING));
+            Update update = new Update()
+                    .set("deliveryPartnerId", assignment.partner.getPartnerId())
+                    .set("deliveryPartnerPhone", assignment.partner.getPhoneNumber())
+                    .set("status", DeliveryStatus.ASSIGNED)
+                    .set("updatedAt", now);
+            deliveryUpdates.updateOne(query, update);
+        }
+        try {
+            deliveryUpdates.execute();
+        } catch (RuntimeException e) {
+            // Some updates may have landed; the read-back below decides
+            logger.warn("Batch assignment delivery updates failed: {}", e.getMessage());
+        }
+
+        // Unordered bulk results only carry counts, so read back which deliveries went to the planned partner
+        Map<String, PlannedAssignment> byDeliveryId = new HashMap<>();
+        reserved.forEach(assignment -> byDeliveryId.put(assignment.delivery.getDeliveryId(), assignment));
+        Query assignedQuery = Query.query(Criteria.where("_id").in(byDeliveryId.keySet())
+                .and("status").is(DeliveryStatus.ASSIGNED));
+        assignedQuery.fields().include("deliveryPartnerId");
+
+        List<PlannedAssignment> committed = new ArrayList<>();
+        for (Delivery delivery : mongoTemplate.find(assignedQuery, Delivery.class)) {
+            PlannedAssignment assignment = byDeliveryId.get(delivery.getDeliveryId());
+            if (assignment != null && assignment.partner.getPartnerId().equals(delivery.getDeliveryPartnerId())) {
+                committed.add(assignment);
+            }
+        }
+
+        // Give back the slots of deliveries that were taken by someone else meanwhile
+        Set<PlannedAssignment> unused = new HashSet<>(reserved);
+        committed.forEach(unused::remove);
+        for (PlannedAssignment assignment : unused) {
+            deliveryPartnerService.releaseOrder(assignment.partner.getPartnerId(), assignment.delivery.getOrderId());
+        }
+        if (committed.isEmpty()) {
+            return 0;
+        }
+
+        List<String> partnerIds = new ArrayList<>(committed.size());
+        committed.forEach(assignment -> partnerIds.add(assignment.partner.getPartnerId()));
+        deliveryPartnerRepository.findAllById(partnerIds).forEach(partnerLocationIndex::onPartnerChanged);
+
+        List<DeliveryUpdate> trackingUpdates = new ArrayList<>(committed.size());
+        for (PlannedAssignment assignment : committed) {
+            trackingUpdates.add(deliveryTrackingService.newUpdate(assignment.delivery, DeliveryStatus.ASSIGNED,
+                    "Delivery assigned to partner: " + assignment.partner.getPartnerId(), now));
+        }
+        deliveryTrackingService.recordAll(trackingUpdates);
+
+        Instant timestamp = Instant.now();
+        for (PlannedAssignment assignment : committed) {
+            Delivery delivery = assignment.delivery;
+            DeliveryPartner partner = assignment.partner;
+            kafkaTemplate.send("delivery.events", delivery.getDeliveryId(), new DeliveryEvent("delivery.assigned",
+                    delivery.getDeliveryId(), delivery.getOrderId(), DeliveryStatus.ASSIGNED, timestamp));
+            deliveryTrackingPublisher.onStatus(delivery.getDeliveryId(), DeliveryStatus.ASSIGNED);
+            deliveryEtaService.invalidate(delivery.getDeliveryId());
+            deliveryOverdueMonitor.track(delivery.getDeliveryId(), DeliveryStatus.ASSIGNED, delivery.getEstimatedDeliveryTime());
+            PartnerOrderEvent partnerEvent = new PartnerOrderEvent("order-assigned", partner.getPartnerId(),
+                    partner.getUserId(), delivery.getOrderId(), null, timestamp);
+            kafkaTemplate.send("delivery-assignment-events", partnerEvent.eventType(), partnerEvent);
+        }
+
+        return committed.size();
+    }
+
+    /**
+     * Reserves a slot of every planned partner with one bulk of capacity-guarded updates and
+     * returns the assignments whose reservation went through.
+     */
+    private List<PlannedAssignment> reservePartners(List<PlannedAssignment> planned, LocalDateTime now) {
+        BulkOperations reservations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DeliveryPartner.class);
+        for (PlannedAssignment assignment : planned) {
+            String orderId = assignment.delivery.getOrderId();
+            reservations.updateOne(
+                    Query.query(DeliveryPartnerService.capacityAvailable(assignment.partner.getPartnerId(), orderId)),
+                    DeliveryPartnerService.reservation(orderId, now));
+        }
+        try {
+            reservations.execute();
+        } catch (RuntimeException e) {
+            // Some reservations may have landed; the read-back below decides
+            logger.warn("Batch assignment partner reservations failed: {}", e.getMessage());
+        }
+
+        // Each partner is planned at most once per run, so its planned order marks the reservation
+        Map<String, PlannedAssignment> byPartnerId = new HashMap<>();
+        planned.forEach(assignment -> byPartnerId.put(assignment.partner.getPartnerId(), assignment));
+        Query reservedQuery = Query.query(Criteria.where("_id").in(byPartnerId.keySet()));
+        reservedQuery.fields().include("activeOrderIds");
+
+        List<PlannedAssignment> reserved = new ArrayList<>();
+        for (DeliveryPartner partner : mongoTemplate.find(reservedQuery, DeliveryPartner.class)) {
+            PlannedAssignment assignment = byPartnerId.get(partner.getPartnerId());
+            if (partner.getActiveOrderIds() != null && partner.getActiveOrderIds().contains(assignment.delivery.getOrderId())) {
+                reserved.add(assignment);
+            }
+        }
+        return reserved;
+    }
+}
@@ -0,0 +1,348 @@
+package com.mergeeats.deliveryservice.service;
+
+import com.mergeeats.common.enums.DeliveryStatus;
+import com.mergeeats.common.geo.EtaModel;
+import com.mergeeats.common.geo.GeoKernel;
+import com.mergeeats.common.models.Address;
+import com.mergeeats.common.models.Delivery;
+import com.mergeeats.common.models.DeliveryPartner;
+import com.mergeeats.common.models.DeliveryPartner.VehicleType;
+import com.mergeeats.deliveryservice.repository.DeliveryPartnerRepository;
+import com.mergeeats.deliveryservice.repository.DeliveryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live delivery ETAs.
+ *
+ * The inputs that do not change while a delivery is under way are collected once per status:
+ * - pickup and drop-off
+ * - the route distance from the pickup to this drop-off, along the optimized route of a batch
+ * - when the food is ready (the scheduled pickup time)
+ * - the vehicle of the partner
+ * The estimate itself only depends on the partner's position, so a GPS ping is cheap.
+ *
+ * The estimate is cached per delivery. It is only recomputed when the partner has moved more than
+ * delivery.eta.recompute-distance-km or the estimate is older than delivery.eta.max-age-seconds.
+ * It is only stored on the delivery (predictedDeliveryTime) and pushed to tracking subscribers when
+ * it has moved by delivery.eta.publish-threshold-minutes.
+ *
+ * Deliveries without an estimate (finished, or without coordinates) are remembered too, until their
+ * next status change or for delivery.eta.no-eta-ttl-seconds, so their pings do not read Mongo.
+ */
+@Component
+public class DeliveryEtaService {
+
+    private static final double ROUTE_POINT_EPSILON_DEGREES = 1e-6;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private DeliveryPartnerRepository deliveryPartnerRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DeliveryTrackingPublisher deliveryTrackingPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${delivery.matching.road-factor:1.3}")
+    private double roadFactor;
+
+    @Value("${delivery.eta.handoff-minutes:3.0}")
+    private double handoffMinutes;
+
+    @Value("${delivery.eta.recompute-distance-km:0.2}")
+    private double recomputeDistanceKm;
+
+    @Value("${delivery.eta.max-age-seconds:60}")
+    private long maxAgeSeconds;
+
+    @Value("${delivery.eta.publish-threshold-minutes:2}")
+    private long publishThresholdMinutes;
+
+    @Value("${delivery.eta.no-eta-ttl-seconds:300}")
+    private long noEtaTtlSeconds;
+
+    private EtaModel etaModel;
+
+    private final Map<String, EtaState> states = new ConcurrentHashMap<>();
+
+    // Deliveries known to have no estimate, with the System.nanoTime() until which that is trusted
+    private final Map<String, Long> withoutEta = new ConcurrentHashMap<>();
+
+    private Counter recomputedCounter;
+    private Counter cachedCounter;
+    private Counter publishedCounter;
+
+    /**
+     * The fixed inputs of one delivery and its current estimate.
+     */
+    private static final class EtaState {
+
+        final DeliveryStatus status;
+        final VehicleType vehicleType;
+        final double pickupLatitude;
+        final double pickupLongitude;
+        final double dropoffLatitude;
+        final double dropoffLongitude;
+        final double routeKm;
+        final int stopsBefore;
+        final LocalDateTime readyAt;
+
+        // Partner position the estimate was computed from; NaN until the first ping
+        double partnerLatitude = Double.NaN;
+        double partnerLongitude = Double.NaN;
+        long computedAtNanos;
+        LocalDateTime estimate;
+        LocalDateTime published;
+
+        EtaState(DeliveryStatus status, VehicleType vehicleType, double pickupLatitude, double pickupLongitude,
+                 double dropoffLatitude, double dropoffLongitude, double routeKm, int stopsBefore,
+                 LocalDateTime readyAt) {
+            this.status = status;
+            this.vehicleType = vehicleType;
+            this.pickupLatitude = pickupLatitude;
+            this.pickupLongitude = pickupLongitude;
+            this.dropoffLatitude = dropoffLatitude;
+            this.dropoffLongitude = dropoffLongitude;
+            this.routeKm = routeKm;
+            this.stopsBefore = stopsBefore;
+            this.readyAt = readyAt;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        etaModel = new EtaModel(roadFactor, handoffMinutes);
+        recomputedCounter = meterRegistry.counter("delivery.eta.requests", "result", "recomputed");
+        cachedCounter = meterRegistry.counter("delivery.eta.requests", "result", "cached");
+        publishedCounter = meterRegistry.counter("delivery.eta.published");
+        meterRegistry.gauge("delivery.eta.cached", states, Map::size);
+    }
+
+    /**
+     * Updates the estimate of a delivery for a new partner position.
+     */
+    public void onLocation(String deliveryId, double latitude, double longitude) {
+        EtaState state = states.get(deliveryId);
+        if (state == null) {
+            Long until = withoutEta.get(deliveryId);
+            if (until != null && System.nanoTime() - until < 0) {
+                return;
+            }
+            Optional<Delivery> delivery = deliveryRepository.findById(deliveryId);
+            state = delivery.isPresent() ? load(delivery.get()) : null;
+            if (state == null) {
+                rememberWithoutEta(deliveryId);
+                return;
+            }
+        }
+
+        synchronized (state) {
+            if (!Double.isNaN(state.partnerLatitude)
+                    && GeoKernel.haversineKm(state.partnerLatitude, state.partnerLongitude, latitude, longitude) < recomputeDistanceKm
+                    && System.nanoTime() - state.computedAtNanos < TimeUnit.SECONDS.toNanos(maxAgeSeconds)) {
+                cachedCounter.increment();
+                return;
+            }
+            recompute(deliveryId, state, latitude, longitude);
+        }
+    }
+
+    /**
+     * Rebuilds the inputs of a delivery whose status or assignment changed, keeping the last known
+     * partner position.
+     */
+    public void onStatus(Delivery delivery) {
+        EtaState previous = states.remove(delivery.getDeliveryId());
+        withoutEta.remove(delivery.getDeliveryId());
+        EtaState state = load(delivery);
+        if (state == null) {
+            rememberWithoutEta(delivery.getDeliveryId());
+            return;
+        }
+
+        synchronized (state) {
+            if (previous != null) {
+                state.published = previous.published;
+            }
+            double latitude = previous != null ? previous.partnerLatitude : Double.NaN;
+            double longitude = previous != null ? previous.partnerLongitude : Double.NaN;
+            if (Double.isNaN(latitude) && delivery.getCurrentLocation() != null) {
+                longitude = delivery.getCurrentLocation()[0];
+                latitude = delivery.getCurrentLocation()[1];
+            }
+            recompute(delivery.getDeliveryId(), state, latitude, longitude);
+        }
+    }
+
+    // Drops the cached inputs of a delivery changed outside of this service; they are reloaded on next use
+    public void invalidate(String deliveryId) {
+        states.remove(deliveryId);
+        withoutEta.remove(deliveryId);
+    }
+
+    // Forgets deliveries without an estimate once their entry has expired
+    @Scheduled(fixedDelayString = "${delivery.eta.no-eta-sweep-interval-ms:60000}")
+    public void sweepWithoutEta() {
+        long now = System.nanoTime();
+        withoutEta.values().removeIf(until -> now - until >= 0);
+    }
+
+    /**
+     * Current estimate of a delivery, or null when it has none (finished, or without coordinates).
+     */
+    public Map<String, Object> getEta(String deliveryId) {
+        EtaState state = states.get(deliveryId);
+        if (state == null) {
+            Optional<Delivery> delivery = deliveryRepository.findById(deliveryId);
+            if (delivery.isEmpty()) {
+                throw new RuntimeException("Delivery not found with ID: " + deliveryId);
+            }
+            onStatus(delivery.get());
+            state = states.get(deliveryId);
+            if (state == null) {
+                return null;
+            }
+        }
+
+        synchronized (state) {
+            Map<String, Object> eta = new HashMap<>();
+            eta.put("deliveryId", deliveryId);
+            eta.put("status", state.status);
+            eta.put("estimatedDeliveryTime", state.estimate);
+            eta.put("minutesRemaining", Math.max(0, Duration.between(LocalDateTime.now(), state.estimate).toMinutes()));
+            return eta;
+        }
+    }
+
+    private void rememberWithoutEta(String deliveryId) {
+        withoutEta.put(deliveryId, System.nanoTime() + TimeUnit.SECONDS.toNanos(noEtaTtlSeconds));
+    }
+
+    private void recompute(String deliveryId, EtaState state, double latitude, double longitude) {
+        boolean positionKnown = !Double.isNaN(latitude);
+        double readyInMinutes = Duration.between(LocalDateTime.now(), state.readyAt).toSeconds() / 60.0;
+        double minutes;
+
+        switch (state.status) {
+            case PICKED_UP:
+            case IN_TRANSIT:
+                minutes = positionKnown
+                        ? minutesAfterPickup(state, latitude, longitude)
+                        : etaModel.minutesToDropoff(state.vehicleType, state.routeKm, state.stopsBefore);
+                break;
+            default:
+                double toPickupKm = positionKnown && state.status != DeliveryStatus.PENDING
+                        ? GeoKernel.haversineKm(latitude, longitude, state.pickupLatitude, state.pickupLongitude)
+                        : 0.0;
+                minutes = etaModel.minutesToDropoffViaPickup(state.vehicleType, toPickupKm, readyInMinutes,
+                        state.routeKm, state.stopsBefore);
+                break;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        state.partnerLatitude = latitude;
+        state.partnerLongitude = longitude;
+        state.computedAtNanos = System.nanoTime();
+        state.estimate = now.plusSeconds(Math.round(minutes * 60.0));
+        recomputedCounter.increment();
+
+        if (state.published == null
+                || Math.abs(Duration.between(state.published, state.estimate).toMinutes()) >= publishThresholdMinutes) {
+            state.published = state.estimate;
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(deliveryId)),
+                    new Update().set("predictedDeliveryTime", state.estimate), Delivery.class);
+            deliveryTrackingPublisher.onEta(deliveryId, state.estimate);
+            publishedCounter.increment();
+        }
+    }
+
+    /**
+     * Minutes to the drop-off for a partner carrying the food. On a batch route the remaining route
+     * is approximated by the planned distance minus the progress made away from the pickup, and the
+     * stops still ahead shrink in proportion.
+     */
+    private double minutesAfterPickup(EtaState state, double latitude, double longitude) {
+        double directKm = GeoKernel.haversineKm(latitude, longitude, state.dropoffLatitude, state.dropoffLongitude);
+        if (state.stopsBefore == 0) {
+            return etaModel.minutesToDropoff(state.vehicleType, directKm, 0);
+        }
+
+        double progressKm = GeoKernel.haversineKm(state.pickupLatitude, state.pickupLongitude, latitude, longitude);
+        double remainingKm = Math.max(directKm, state.routeKm - progressKm);
+        int stopsAhead = (int) Math.round(state.stopsBefore * Math.min(1.0, remainingKm / state.routeKm));
+        return etaModel.minutesToDropoff(state.vehicleType, remainingKm, stopsAhead);
+    }
+
+    private EtaState load(Delivery delivery) {
+        Address pickup = delivery.getPickupAddress();
+        Address dropoff = delivery.getDeliveryAddress();
+        if (delivery.getStatus() == null || delivery.getStatus().isTerminal()
+                || !hasCoordinates(pickup) || !hasCoordinates(dropoff)) {
+            return null;
+        }
+
+        VehicleType vehicleType = null;
+        if (delivery.getDeliveryPartnerId() != null) {
+            vehicleType = deliveryPartnerRepository.findById(delivery.getDeliveryPartnerId())
+                    .map(DeliveryPartner::getVehicleType)
+                    .orElse(null);
+        }
+
+        double routeKm = GeoKernel.haversineKm(pickup.getLatitude(), pickup.getLongitude(),
+                dropoff.getLatitude(), dropoff.getLongitude());
+        int stopsBefore = 0;
+
+        // On a batch route this drop-off is reached after the stops planned before it
+        List<double[]> route = delivery.getOptimizedRoute();
+        if (route != null && route.size() > 2) {
+            double travelled = 0.0;
+            for (int i = 1; i < route.size(); i++) {
+                double[] from = route.get(i - 1);
+                double[] to = route.get(i);
+                travelled += GeoKernel.haversineKm(from[1], from[0], to[1], to[0]);
+                if (Math.abs(to[1] - dropoff.getLatitude()) < ROUTE_POINT_EPSILON_DEGREES
+                        && Math.abs(to[0] - dropoff.getLongitude()) < ROUTE_POINT_EPSILON_DEGREES) {
+                    routeKm = travelled;
+                    stopsBefore = i - 1;
+                    break;
+                }
+            }
+        }
+
+        LocalDateTime readyAt = delivery.getScheduledPickupTime() != null
+                ? delivery.getScheduledPickupTime() : LocalDateTime.now();
+        EtaState state = new EtaState(delivery.getStatus(), vehicleType, pickup.getLatitude(), pickup.getLongitude(),
+                dropoff.getLatitude(), dropoff.getLongitude(), routeKm, stopsBefore, readyAt);
+        EtaState existing = states.putIfAbsent(delivery.getDeliveryId(), state);
+        return existing != null ? existing : state;
+    }
+
+    private boolean hasCoordinates(Address address) {
+        return address != null && address.getLatitude() != null && address.getLongitude() != null;
+    }
+}
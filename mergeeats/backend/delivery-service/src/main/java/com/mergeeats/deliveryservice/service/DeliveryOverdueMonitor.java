@@ -0,0 +1,202 @@
+package com.mergeeats.deliveryservice.service;
+
+import com.mergeeats.common.enums.DeliveryStatus;
+import com.mergeeats.common.events.DeliveryEvent;
+import com.mergeeats.common.models.Delivery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Detects overdue deliveries the moment their estimated delivery time passes.
+ *
+ * Active deliveries sit in an in-memory delay queue keyed by their deadline, and one thread sleeps
+ * until the earliest deadline is due. Status changes reschedule or drop their delivery, so Mongo is
+ * not polled; the queue is rebuilt from the {status, estimatedDeliveryTime} index on startup.
+ *
+ * A due deadline is confirmed with one conditional update that stamps overdueNotifiedAt, so a
+ * delivery that finished meanwhile, or that another instance already reported, is skipped. The
+ * delivery.overdue event is published once per delivery.
+ */
+@Component
+public class DeliveryOverdueMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryOverdueMonitor.class);
+
+    private static final List<DeliveryStatus> ACTIVE_STATUSES = List.of(
+            DeliveryStatus.ASSIGNED, DeliveryStatus.ACCEPTED, DeliveryStatus.PICKED_UP, DeliveryStatus.IN_TRANSIT);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+
+    // Current deadline per delivery; queued deadlines that no longer match are stale and ignored
+    private final Map<String, Deadline> deadlines = new ConcurrentHashMap<>();
+
+    private Thread worker;
+    private volatile boolean running;
+
+    private Counter overdueCounter;
+    private Timer detectionLag;
+
+    /**
+     * The estimated delivery time of one delivery, as epoch milliseconds.
+     */
+    static final class Deadline implements Delayed {
+
+        final String deliveryId;
+        final long dueAtMillis;
+
+        Deadline(String deliveryId, long dueAtMillis) {
+            this.deliveryId = deliveryId;
+            this.dueAtMillis = dueAtMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((Deadline) other).dueAtMillis);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        overdueCounter = meterRegistry.counter("delivery.overdue.detected");
+        detectionLag = Timer.builder("delivery.overdue.detection.lag")
+                .description("Time from the estimated delivery time of a delivery to its overdue event")
+                .register(meterRegistry);
+        meterRegistry.gauge("delivery.overdue.scheduled", deadlines, Map::size);
+
+        running = true;
+        worker = new Thread(this::run, "delivery-overdue-monitor");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Loads the deadlines of all active deliveries not reported yet. Only the fields needed for
+     * scheduling are read, through the {status, estimatedDeliveryTime} index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Query query = Query.query(Criteria.where("status").in(ACTIVE_STATUSES)
+                .and("estimatedDeliveryTime").ne(null)
+                .and("overdueNotifiedAt").is(null));
+        query.fields().include("status", "estimatedDeliveryTime");
+
+        int loaded = 0;
+        try (Stream<Delivery> deliveries = mongoTemplate.stream(query, Delivery.class)) {
+            Iterator<Delivery> iterator = deliveries.iterator();
+            while (iterator.hasNext()) {
+                Delivery delivery = iterator.next();
+                // A status change seen since startup is newer than what was read here
+                deadlines.computeIfAbsent(delivery.getDeliveryId(), id -> enqueue(id, delivery.getEstimatedDeliveryTime()));
+                loaded++;
+            }
+        }
+        logger.info("Scheduled overdue checks for {} active deliveries", loaded);
+    }
+
+    // Reschedule a delivery after a status change; finished or unassigned deliveries are dropped
+    public void track(String deliveryId, DeliveryStatus status, LocalDateTime estimatedDeliveryTime) {
+        if (status == null || !status.isActive() || estimatedDeliveryTime == null) {
+            deadlines.remove(deliveryId);
+            return;
+        }
+        deadlines.compute(deliveryId, (id, current) -> current != null && current.dueAtMillis == toMillis(estimatedDeliveryTime)
+                ? current : enqueue(id, estimatedDeliveryTime));
+    }
+
+    public void track(Delivery delivery) {
+        track(delivery.getDeliveryId(), delivery.getStatus(), delivery.getEstimatedDeliveryTime());
+    }
+
+    private Deadline enqueue(String deliveryId, LocalDateTime estimatedDeliveryTime) {
+        Deadline deadline = new Deadline(deliveryId, toMillis(estimatedDeliveryTime));
+        queue.add(deadline);
+        return deadline;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Deadline deadline = queue.take();
+                // Removed only if still current; a rescheduled delivery keeps its newer deadline
+                if (deadlines.remove(deadline.deliveryId, deadline)) {
+                    fire(deadline);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Overdue check failed", e);
+            }
+        }
+    }
+
+    private void fire(Deadline deadline) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("_id").is(deadline.deliveryId)
+                .and("status").in(ACTIVE_STATUSES)
+                .and("estimatedDeliveryTime").lte(now)
+                .and("overdueNotifiedAt").is(null));
+        Delivery delivery = mongoTemplate.findAndModify(query, new Update().set("overdueNotifiedAt", now),
+                FindAndModifyOptions.options().returnNew(true), Delivery.class);
+        if (delivery == null) {
+            return;
+        }
+
+        kafkaTemplate.send("delivery.events", delivery.getDeliveryId(), new DeliveryEvent("delivery.overdue",
+                delivery.getDeliveryId(), delivery.getOrderId(), delivery.getStatus(), Instant.now()));
+        overdueCounter.increment();
+        detectionLag.record(Math.max(0, System.currentTimeMillis() - deadline.dueAtMillis), TimeUnit.MILLISECONDS);
+        logger.info("Delivery {} is overdue since {}", delivery.getDeliveryId(), delivery.getEstimatedDeliveryTime());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
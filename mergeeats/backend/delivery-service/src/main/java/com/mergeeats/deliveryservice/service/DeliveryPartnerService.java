@@ -1,5 +1,10 @@
 package com.mergeeats.deliveryservice.service;
 
+import com.mergeeats.common.events.PartnerDeactivatedEvent;
+import com.mergeeats.common.events.PartnerLocationUpdatedEvent;
+import com.mergeeats.common.events.PartnerOrderEvent;
+import com.mergeeats.common.events.PartnerRatingUpdatedEvent;
+import com.mergeeats.common.events.PartnerStatusChangedEvent;
 import com.mergeeats.common.models.DeliveryPartner;
 import com.mergeeats.common.models.DeliveryPartner.AvailabilityStatus;
 import com.mergeeats.common.models.DeliveryPartner.VehicleType;
@@ -8,10 +13,19 @@ import com.mergeeats.deliveryservice.repository.DeliveryPartnerRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ArrayList;
 import java.util.stream.Collectors;
@@ -21,9 +35,21 @@ public class DeliveryPartnerService {
 
     private static final Logger logger = LoggerFactory.getLogger(DeliveryPartnerService.class);
 
+    // Compare-and-set attempts of a rating update before giving up
+    private static final int MAX_RATING_ATTEMPTS = 5;
+
     @Autowired
     private DeliveryPartnerRepository deliveryPartnerRepository;
 
+    @Autowired
+    private PartnerLocationIndex partnerLocationIndex;
+
+    @Autowired
+    private PartnerLeaderboard partnerLeaderboard;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Autowired
     private KafkaTemplate<String, Object> kafkaTemplate;
 
@@ -57,6 +83,7 @@ public class DeliveryPartnerService {
             partner.setLastActiveTime(LocalDateTime.now());
 
             DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+            partnerLocationIndex.onPartnerChanged(savedPartner);
             
             // Publish event
             publishPartnerEvent("delivery-partner-registered", savedPartner);
@@ -80,37 +107,32 @@ public class DeliveryPartnerService {
 
     public DeliveryPartner updatePartner(String partnerId, DeliveryPartner updatedPartner) {
         try {
-            Optional<DeliveryPartner> existingPartner = deliveryPartnerRepository.findById(partnerId);
-            if (existingPartner.isEmpty()) {
-                throw new RuntimeException("Delivery partner not found");
-            }
-
-            DeliveryPartner partner = existingPartner.get();
-            
-            // Update allowed fields
+            // Update allowed fields; only these are written, so concurrent reservations are kept
+            Update update = new Update().set("updatedAt", LocalDateTime.now());
             if (updatedPartner.getFullName() != null) {
-                partner.setFullName(updatedPartner.getFullName());
+                update.set("fullName", updatedPartner.getFullName());
             }
             if (updatedPartner.getPhoneNumber() != null) {
-                partner.setPhoneNumber(updatedPartner.getPhoneNumber());
+                update.set("phoneNumber", updatedPartner.getPhoneNumber());
             }
             if (updatedPartner.getVehicleType() != null) {
-                partner.setVehicleType(updatedPartner.getVehicleType());
+                update.set("vehicleType", updatedPartner.getVehicleType());
             }
             if (updatedPartner.getVehicleRegistrationNumber() != null) {
-                partner.setVehicleRegistrationNumber(updatedPartner.getVehicleRegistrationNumber());
+                update.set("vehicleRegistrationNumber", updatedPartner.getVehicleRegistrationNumber());
             }
             if (updatedPartner.getLicenseNumber() != null) {
-                partner.setLicenseNumber(updatedPartner.getLicenseNumber());
+                update.set("licenseNumber", updatedPartner.getLicenseNumber());
             }
             if (updatedPartner.getMaxConcurrentOrders() != null) {
-                partner.setMaxConcurrentOrders(updatedPartner.getMaxConcurrentOrders());
+                update.set("maxConcurrentOrders", updatedPartner.getMaxConcurrentOrders());
             }
             if (updatedPartner.getDeliveryRadius() != null) {
-                partner.setDeliveryRadius(updatedPartner.getDeliveryRadius());
+                update.set("deliveryRadius", updatedPartner.getDeliveryRadius());
             }
 
-            DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+            DeliveryPartner savedPartner = updatePartnerFields(partnerId, update);
+            partnerLocationIndex.onPartnerChanged(savedPartner);
             publishPartnerEvent("delivery-partner-updated", savedPartner);
             
             logger.info("Delivery partner updated successfully: {}", partnerId);
@@ -125,17 +147,23 @@ public class DeliveryPartnerService {
     // Availability Management
     public DeliveryPartner updateAvailabilityStatus(String partnerId, AvailabilityStatus status) {
         try {
-            Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-            if (partnerOpt.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            // The previous document tells which status was replaced
+            DeliveryPartner previous = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(partnerId)),
+                    new Update().set("availabilityStatus", status).set("lastActiveTime", now).set("updatedAt", now),
+                    FindAndModifyOptions.options().returnNew(false),
+                    DeliveryPartner.class);
+            if (previous == null) {
                 throw new RuntimeException("Delivery partner not found");
             }
 
-            DeliveryPartner partner = partnerOpt.get();
-            AvailabilityStatus oldStatus = partner.getAvailabilityStatus();
-            partner.setAvailabilityStatus(status);
-            partner.setLastActiveTime(LocalDateTime.now());
-
-            DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+            AvailabilityStatus oldStatus = previous.getAvailabilityStatus();
+            DeliveryPartner savedPartner = previous;
+            savedPartner.setAvailabilityStatus(status);
+            savedPartner.setLastActiveTime(now);
+            savedPartner.setUpdatedAt(now);
+            partnerLocationIndex.onPartnerChanged(savedPartner);
 
             // Publish status change event
             publishPartnerStatusChangeEvent(savedPartner, oldStatus, status);
@@ -151,16 +179,11 @@ public class DeliveryPartnerService {
 
     public DeliveryPartner updateLocation(String partnerId, Address location) {
         try {
-            Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-            if (partnerOpt.isEmpty()) {
-                throw new RuntimeException("Delivery partner not found");
-            }
-
-            DeliveryPartner partner = partnerOpt.get();
-            partner.setCurrentLocation(location);
-            partner.setLastActiveTime(LocalDateTime.now());
-
-            DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+            // Called at GPS rate: only the location is written, never the order slots
+            DeliveryPartner savedPartner = updatePartnerFields(partnerId, new Update()
+                    .set("currentLocation", location)
+                    .set("lastActiveTime", LocalDateTime.now()));
+            partnerLocationIndex.onPartnerChanged(savedPartner);
             
             // Publish location update event
             publishPartnerLocationUpdateEvent(savedPartner);
@@ -179,33 +202,23 @@ public class DeliveryPartnerService {
     }
 
     public List<DeliveryPartner> getPartnersInArea(double latitude, double longitude, double radiusKm) {
-        // Calculate bounding box for the area
-        double latRange = radiusKm / 111.0; // Approximate km per degree latitude
-        double lonRange = radiusKm / (111.0 * Math.cos(Math.toRadians(latitude))); // Adjust for longitude
-
-        double minLat = latitude - latRange;
-        double maxLat = latitude + latRange;
-        double minLon = longitude - lonRange;
-        double maxLon = longitude + lonRange;
-
-        return deliveryPartnerRepository.findAvailablePartnersInArea(minLat, maxLat, minLon, maxLon, AvailabilityStatus.AVAILABLE);
+        // Served from the in-memory index, nearest first
+        return partnerLocationIndex.findWithinRadius(latitude, longitude, radiusKm, DeliveryPartner::isAvailable)
+                .stream()
+                .map(PartnerLocationIndex.NearbyPartner::getPartner)
+                .collect(Collectors.toList());
     }
 
     public List<DeliveryPartner> getOptimalPartnersForOrder(double latitude, double longitude, double radiusKm, double minRating) {
-        // Calculate bounding box
-        double latRange = radiusKm / 111.0;
-        double lonRange = radiusKm / (111.0 * Math.cos(Math.toRadians(latitude)));
-
-        double minLat = latitude - latRange;
-        double maxLat = latitude + latRange;
-        double minLon = longitude - lonRange;
-        double maxLon = longitude + lonRange;
-
-        List<DeliveryPartner> partners = deliveryPartnerRepository.findOptimalPartnersInArea(minLat, maxLat, minLon, maxLon, minRating);
+        List<DeliveryPartner> partners = partnerLocationIndex.findWithinRadius(latitude, longitude, radiusKm,
+                        partner -> partner.isAvailable() && partner.canTakeMoreOrders()
+                                && partner.getRating() != null && partner.getRating() >= minRating)
+                .stream()
+                .map(PartnerLocationIndex.NearbyPartner::getPartner)
+                .collect(Collectors.toList());
         
         // Sort by rating (descending) and then by distance (ascending)
         return partners.stream()
-                .filter(partner -> partner.canTakeMoreOrders())
                 .sorted((p1, p2) -> {
                     // First sort by rating (higher is better)
                     int ratingCompare = Double.compare(p2.getRating(), p1.getRating());
@@ -226,73 +239,90 @@ public class DeliveryPartnerService {
 
     // Order Management
     public DeliveryPartner assignOrder(String partnerId, String orderId) {
-        try {
-            Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-            if (partnerOpt.isEmpty()) {
-                throw new RuntimeException("Delivery partner not found");
-            }
+        // One conditional update reserves the slot, so concurrent assignments cannot overbook a partner
+        DeliveryPartner savedPartner = mongoTemplate.findAndModify(
+                Query.query(capacityAvailable(partnerId, orderId)),
+                reservation(orderId, LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                DeliveryPartner.class);
+
+        if (savedPartner == null) {
+            RuntimeException failure = new RuntimeException(reservationFailureReason(partnerId, orderId));
+            logger.error("Error assigning order {} to partner {}: {}", orderId, partnerId, failure.getMessage());
+            throw failure;
+        }
 
-            DeliveryPartner partner = partnerOpt.get();
-            
-            if (!partner.isAvailable()) {
-                throw new RuntimeException("Partner is not available for assignment");
-            }
-            
-            if (!partner.canTakeMoreOrders()) {
-                throw new RuntimeException("Partner has reached maximum concurrent orders");
-            }
+        partnerLocationIndex.onPartnerChanged(savedPartner);
 
-            // Add order to active orders
-            if (partner.getActiveOrderIds() == null) {
-                partner.setActiveOrderIds(new ArrayList<>());
-            }
-            partner.getActiveOrderIds().add(orderId);
-            
-            // Update status if this is the first order
-            if (partner.getActiveOrderIds().size() == 1) {
-                partner.setAvailabilityStatus(AvailabilityStatus.BUSY);
-            }
+        // Publish order assignment event
+        publishOrderAssignmentEvent(savedPartner, orderId);
 
-            DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
-            
-            // Publish order assignment event
-            publishOrderAssignmentEvent(savedPartner, orderId);
-            
-            logger.info("Order {} assigned to partner {}", orderId, partnerId);
-            return savedPartner;
-            
-        } catch (Exception e) {
-            logger.error("Error assigning order {} to partner {}: {}", orderId, partnerId, e.getMessage());
-            throw e;
+        logger.info("Order {} assigned to partner {}", orderId, partnerId);
+        return savedPartner;
+    }
+
+    // Give back a slot reserved by assignOrder when the assignment it was taken for did not go through
+    public void releaseOrder(String partnerId, String orderId) {
+        DeliveryPartner partner = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(partnerId).and("activeOrderIds").is(orderId)),
+                new Update().pull("activeOrderIds", orderId).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                DeliveryPartner.class);
+        if (partner == null) {
+            return;
         }
+
+        partnerLocationIndex.onPartnerChanged(markAvailableIfIdle(partner));
+        logger.info("Released order {} reserved for partner {}", orderId, partnerId);
     }
 
-    public DeliveryPartner completeOrder(String partnerId, String orderId) {
-        try {
-            Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-            if (partnerOpt.isEmpty()) {
-                throw new RuntimeException("Delivery partner not found");
-            }
+    /**
+     * Matches the partner only while it can take the order: active, verified, online and not on a
+     * break, not already holding the order, and with fewer active orders than its own limit.
+     */
+    static Criteria capacityAvailable(String partnerId, String orderId) {
+        return Criteria.where("_id").is(partnerId)
+                .and("isActive").is(true)
+                .and("isVerified").is(true)
+                .and("availabilityStatus").in(AvailabilityStatus.AVAILABLE, AvailabilityStatus.BUSY)
+                .and("activeOrderIds").ne(orderId)
+                .andOperator(Criteria.expr(MongoExpression.create(
+                        "{ $lt: [ { $size: { $ifNull: ['$activeOrderIds', []] } }, { $ifNull: ['$maxConcurrentOrders', 3] } ] }")));
+    }
 
-            DeliveryPartner partner = partnerOpt.get();
-            
-            if (partner.getActiveOrderIds() == null || !partner.getActiveOrderIds().contains(orderId)) {
-                throw new RuntimeException("Order not found in partner's active orders");
-            }
+    // Takes one slot for the order; only apply together with capacityAvailable
+    static Update reservation(String orderId, LocalDateTime now) {
+        return new Update()
+                .push("activeOrderIds", orderId)
+                .set("availabilityStatus", AvailabilityStatus.BUSY)
+                .set("updatedAt", now);
+    }
 
-            // Remove order from active orders
-            partner.getActiveOrderIds().remove(orderId);
-            
-            // Update statistics
-            partner.setCompletedDeliveries(partner.getCompletedDeliveries() + 1);
-            partner.setTotalDeliveries(partner.getTotalDeliveries() + 1);
-            
-            // Update availability status if no more active orders
-            if (partner.getActiveOrderIds().isEmpty()) {
-                partner.setAvailabilityStatus(AvailabilityStatus.AVAILABLE);
-            }
+    // Only called after a failed reservation, to report why it failed
+    private String reservationFailureReason(String partnerId, String orderId) {
+        Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
+        if (partnerOpt.isEmpty()) {
+            return "Delivery partner not found";
+        }
 
-            DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+        DeliveryPartner partner = partnerOpt.get();
+        if (partner.getActiveOrderIds() != null && partner.getActiveOrderIds().contains(orderId)) {
+            return "Order is already assigned to partner";
+        }
+        if (!partner.canTakeMoreOrders()) {
+            return "Partner has reached maximum concurrent orders";
+        }
+        return "Partner is not available for assignment";
+    }
+
+    public DeliveryPartner completeOrder(String partnerId, String orderId) {
+        try {
+            // Remove order from active orders and update statistics in one update
+            DeliveryPartner savedPartner = finishOrder(partnerId, orderId, new Update()
+                    .inc("completedDeliveries", 1)
+                    .inc("totalDeliveries", 1));
+            partnerLocationIndex.onPartnerChanged(savedPartner);
+            partnerLeaderboard.onPartnerChanged(savedPartner);
             
             // Publish order completion event
             publishOrderCompletionEvent(savedPartner, orderId);
@@ -308,30 +338,12 @@ public class DeliveryPartnerService {
 
     public DeliveryPartner cancelOrder(String partnerId, String orderId, String reason) {
         try {
-            Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-            if (partnerOpt.isEmpty()) {
-                throw new RuntimeException("Delivery partner not found");
-            }
-
-            DeliveryPartner partner = partnerOpt.get();
-            
-            if (partner.getActiveOrderIds() == null || !partner.getActiveOrderIds().contains(orderId)) {
-                throw new RuntimeException("Order not found in partner's active orders");
-            }
-
-            // Remove order from active orders
-            partner.getActiveOrderIds().remove(orderId);
-            
-            // Update statistics
-            partner.setCancelledDeliveries(partner.getCancelledDeliveries() + 1);
-            partner.setTotalDeliveries(partner.getTotalDeliveries() + 1);
-            
-            // Update availability status if no more active orders
-            if (partner.getActiveOrderIds().isEmpty()) {
-                partner.setAvailabilityStatus(AvailabilityStatus.AVAILABLE);
-            }
-
-            DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+            // Remove order from active orders and update statistics in one update
+            DeliveryPartner savedPartner = finishOrder(partnerId, orderId, new Update()
+                    .inc("cancelledDeliveries", 1)
+                    .inc("totalDeliveries", 1));
+            partnerLocationIndex.onPartnerChanged(savedPartner);
+            partnerLeaderboard.onPartnerChanged(savedPartner);
             
             // Publish order cancellation event
             publishOrderCancellationEvent(savedPartner, orderId, reason);
@@ -345,34 +357,92 @@ public class DeliveryPartnerService {
         }
     }
 
+    /**
+     * Removes an order from the partner's active orders together with the given statistics
+     * update, and frees the partner when it was the last one.
+     */
+    private DeliveryPartner finishOrder(String partnerId, String orderId, Update statistics) {
+        DeliveryPartner partner = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(partnerId).and("activeOrderIds").is(orderId)),
+                statistics.pull("activeOrderIds", orderId).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                DeliveryPartner.class);
+        if (partner == null) {
+            throw new RuntimeException(deliveryPartnerRepository.existsById(partnerId)
+                    ? "Order not found in partner's active orders" : "Delivery partner not found");
+        }
+        return markAvailableIfIdle(partner);
+    }
+
+    // Back to AVAILABLE once the last order is gone, unless another order was reserved in between
+    private DeliveryPartner markAvailableIfIdle(DeliveryPartner partner) {
+        if (partner.getActiveOrderIds() != null && !partner.getActiveOrderIds().isEmpty()) {
+            return partner;
+        }
+        DeliveryPartner available = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(partner.getPartnerId())
+                        .and("availabilityStatus").is(AvailabilityStatus.BUSY)
+                        .and("activeOrderIds").size(0)),
+                new Update().set("availabilityStatus", AvailabilityStatus.AVAILABLE).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                DeliveryPartner.class);
+        return available != null ? available : partner;
+    }
+
+    // Applies a targeted update and returns the partner as written; updatedAt orders the snapshots in the index
+    private DeliveryPartner updatePartnerFields(String partnerId, Update update) {
+        update.set("updatedAt", LocalDateTime.now());
+        DeliveryPartner partner = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(partnerId)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                DeliveryPartner.class);
+        if (partner == null) {
+            throw new RuntimeException("Delivery partner not found");
+        }
+        return partner;
+    }
+
     // Rating and Performance
     public DeliveryPartner updateRating(String partnerId, double newRating, int totalRatings) {
         try {
-            Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-            if (partnerOpt.isEmpty()) {
-                throw new RuntimeException("Delivery partner not found");
+            for (int attempt = 0; attempt < MAX_RATING_ATTEMPTS; attempt++) {
+                Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
+                if (partnerOpt.isEmpty()) {
+                    throw new RuntimeException("Delivery partner not found");
+                }
+
+                DeliveryPartner partner = partnerOpt.get();
+                
+                // Calculate weighted average rating
+                double currentRating = partner.getRating();
+                int currentDeliveries = partner.getCompletedDeliveries();
+                double rating = currentDeliveries > 0
+                        ? ((currentRating * currentDeliveries) + newRating) / (currentDeliveries + 1)
+                        : newRating;
+
+                // Only written if neither input changed since it was read; otherwise recompute
+                DeliveryPartner savedPartner = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(partnerId)
+                                .and("rating").is(currentRating)
+                                .and("completedDeliveries").is(currentDeliveries)),
+                        new Update().set("rating", rating).set("updatedAt", LocalDateTime.now()),
+                        FindAndModifyOptions.options().returnNew(true),
+                        DeliveryPartner.class);
+                if (savedPartner == null) {
+                    continue;
+                }
+
+                partnerLocationIndex.onPartnerChanged(savedPartner);
+                partnerLeaderboard.onPartnerChanged(savedPartner);
+                
+                // Publish rating update event
+                publishPartnerRatingUpdateEvent(savedPartner, newRating);
+                
+                logger.info("Rating updated for partner {}: {}", partnerId, savedPartner.getRating());
+                return savedPartner;
             }
-
-            DeliveryPartner partner = partnerOpt.get();
-            
-            // Calculate weighted average rating
-            double currentRating = partner.getRating();
-            int currentDeliveries = partner.getCompletedDeliveries();
-            
-            if (currentDeliveries > 0) {
-                double totalScore = (currentRating * currentDeliveries) + newRating;
-                partner.setRating(totalScore / (currentDeliveries + 1));
-            } else {
-                partner.setRating(newRating);
-            }
-
-            DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
-            
-            // Publish rating update event
-            publishPartnerRatingUpdateEvent(savedPartner, newRating);
-            
-            logger.info("Rating updated for partner {}: {}", partnerId, partner.getRating());
-            return savedPartner;
+            throw new RuntimeException("Rating update kept conflicting with concurrent updates");
             
         } catch (Exception e) {
             logger.error("Error updating rating for partner {}: {}", partnerId, e.getMessage());
@@ -383,15 +453,11 @@ public class DeliveryPartnerService {
     // Verification
     public DeliveryPartner verifyPartner(String partnerId) {
         try {
-            Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-            if (partnerOpt.isEmpty()) {
-                throw new RuntimeException("Delivery partner not found");
-            }
-
-            DeliveryPartner partner = partnerOpt.get();
-            partner.setIsVerified(true);
-
-            DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+            DeliveryPartner savedPartner = updatePartnerFields(partnerId, new Update()
+                    .set("isVerified", true)
+                    .set("updatedAt", LocalDateTime.now()));
+            partnerLocationIndex.onPartnerChanged(savedPartner);
+            partnerLeaderboard.onPartnerChanged(savedPartner);
             
             // Publish verification event
             publishPartnerEvent("delivery-partner-verified", savedPartner);
@@ -407,16 +473,12 @@ public class DeliveryPartnerService {
 
     public DeliveryPartner deactivatePartner(String partnerId, String reason) {
         try {
-            Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-            if (partnerOpt.isEmpty()) {
-                throw new RuntimeException("Delivery partner not found");
-            }
-
-            DeliveryPartner partner = partnerOpt.get();
-            partner.setIsActive(false);
-            partner.setAvailabilityStatus(AvailabilityStatus.OFFLINE);
-
-            DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+            DeliveryPartner savedPartner = updatePartnerFields(partnerId, new Update()
+                    .set("isActive", false)
+                    .set("availabilityStatus", AvailabilityStatus.OFFLINE)
+                    .set("updatedAt", LocalDateTime.now()));
+            partnerLocationIndex.onPartnerChanged(savedPartner);
+            partnerLeaderboard.onPartnerChanged(savedPartner);
             
             // Publish deactivation event
             publishPartnerDeactivationEvent(savedPartner, reason);
@@ -432,19 +494,23 @@ public class DeliveryPartnerService {
 
     // Statistics and Analytics
     public List<DeliveryPartner> getTopPerformingPartners(int limit) {
-        return deliveryPartnerRepository.findByIsActiveTrueAndIsVerifiedTrue()
-                .stream()
-                .filter(partner -> partner.getCompletedDeliveries() > 10) // Minimum deliveries
-                .sorted((p1, p2) -> {
-                    // Sort by rating first
-                    int ratingCompare = Double.compare(p2.getRating(), p1.getRating());
-                    if (ratingCompare != 0) return ratingCompare;
-                    
-                    // Then by completion rate
-                    return Double.compare(p2.getCompletionRate(), p1.getCompletionRate());
-                })
-                .limit(limit)
-                .collect(Collectors.toList());
+        List<String> partnerIds = partnerLeaderboard.topPartnerIds(limit);
+        Map<String, DeliveryPartner> partners = new HashMap<>();
+        deliveryPartnerRepository.findAllById(partnerIds).forEach(partner -> partners.put(partner.getPartnerId(), partner));
+
+        // Keep the leaderboard order
+        List<DeliveryPartner> ranked = new ArrayList<>(partnerIds.size());
+        for (String partnerId : partnerIds) {
+            DeliveryPartner partner = partners.get(partnerId);
+            if (partner != null) {
+                ranked.add(partner);
+            }
+        }
+        return ranked;
+    }
+
+    public PartnerLeaderboard.Ranking getPartnerRanking(String partnerId) {
+        return partnerLeaderboard.getRanking(partnerId);
     }
 
     public List<DeliveryPartner> getPartnersByVehicleType(VehicleType vehicleType) {
@@ -463,14 +529,9 @@ public class DeliveryPartnerService {
 
     private void publishPartnerStatusChangeEvent(DeliveryPartner partner, AvailabilityStatus oldStatus, AvailabilityStatus newStatus) {
         try {
-            var event = new Object() {
-                public final String partnerId = partner.getPartnerId();
-                public final String userId = partner.getUserId();
-                public final AvailabilityStatus previousStatus = oldStatus;
-                public final AvailabilityStatus currentStatus = newStatus;
-                public final LocalDateTime timestamp = LocalDateTime.now();
-            };
-            kafkaTemplate.send("delivery-partner-status-updates", "status-changed", event);
+            var event = new PartnerStatusChangedEvent(partner.getPartnerId(), partner.getUserId(),
+                oldStatus, newStatus, Instant.now());
+            kafkaTemplate.send("delivery-partner-status-updates", event.eventType(), event);
         } catch (Exception e) {
             logger.error("Error publishing partner status change event: {}", e.getMessage());
         }
@@ -478,13 +539,12 @@ public class DeliveryPartnerService {
 
     private void publishPartnerLocationUpdateEvent(DeliveryPartner partner) {
         try {
-            var event = new Object() {
-                public final String partnerId = partner.getPartnerId();
-                public final String userId = partner.getUserId();
-                public final Address location = partner.getCurrentLocation();
-                public final LocalDateTime timestamp = LocalDateTime.now();
-            };
-            kafkaTemplate.send("delivery-partner-location-updates", "location-updated", event);
+            Address location = partner.getCurrentLocation();
+            double latitude = location != null && location.getLatitude() != null ? location.getLatitude() : Double.NaN;
+            double longitude = location != null && location.getLongitude() != null ? location.getLongitude() : Double.NaN;
+            var event = new PartnerLocationUpdatedEvent(partner.getPartnerId(), partner.getUserId(),
+                latitude, longitude, Instant.now());
+            kafkaTemplate.send("delivery-partner-location-updates", event.eventType(), event);
         } catch (Exception e) {
             logger.error("Error publishing partner location update event: {}", e.getMessage());
         }
@@ -492,13 +552,9 @@ public class DeliveryPartnerService {
 
     private void publishOrderAssignmentEvent(DeliveryPartner partner, String orderId) {
         try {
-            var event = new Object() {
-                public final String partnerId = partner.getPartnerId();
-                public final String assignedOrderId = orderId;
-                public final String userId = partner.getUserId();
-                public final LocalDateTime timestamp = LocalDateTime.now();
-            };
-            kafkaTemplate.send("delivery-assignment-events", "order-assigned", event);
+            var event = new PartnerOrderEvent("order-assigned", partner.getPartnerId(), partner.getUserId(),
+                orderId, null, Instant.now());
+            kafkaTemplate.send("delivery-assignment-events", event.eventType(), event);
         } catch (Exception e) {
             logger.error("Error publishing order assignment event: {}", e.getMessage());
         }
@@ -506,13 +562,9 @@ public class DeliveryPartnerService {
 
     private void publishOrderCompletionEvent(DeliveryPartner partner, String orderId) {
         try {
-            var event = new Object() {
-                public final String partnerId = partner.getPartnerId();
-                public final String assignedOrderId = orderId;
-                public final String userId = partner.getUserId();
-                public final LocalDateTime timestamp = LocalDateTime.now();
-            };
-            kafkaTemplate.send("delivery-completion-events", "order-completed", event);
+            var event = new PartnerOrderEvent("order-completed", partner.getPartnerId(), partner.getUserId(),
+                orderId, null, Instant.now());
+            kafkaTemplate.send("delivery-completion-events", event.eventType(), event);
         } catch (Exception e) {
             logger.error("Error publishing order completion event: {}", e.getMessage());
         }
@@ -520,14 +572,9 @@ public class DeliveryPartnerService {
 
     private void publishOrderCancellationEvent(DeliveryPartner partner, String orderId, String reason) {
         try {
-            var event = new Object() {
-                public final String partnerId = partner.getPartnerId();
-                public final String assignedOrderId = orderId;
-                public final String userId = partner.getUserId();
-                public final String cancellationReason = reason;
-                public final LocalDateTime timestamp = LocalDateTime.now();
-            };
-            kafkaTemplate.send("delivery-cancellation-events", "order-cancelled", event);
+            var event = new PartnerOrderEvent("order-cancelled", partner.getPartnerId(), partner.getUserId(),
+                orderId, reason, Instant.now());
+            kafkaTemplate.send("delivery-cancellation-events", event.eventType(), event);
         } catch (Exception e) {
             logger.error("Error publishing order cancellation event: {}", e.getMessage());
         }
@@ -535,14 +582,9 @@ public class DeliveryPartnerService {
 
     private void publishPartnerRatingUpdateEvent(DeliveryPartner partner, double newRating) {
         try {
-            var event = new Object() {
-                public final String partnerId = partner.getPartnerId();
-                public final String userId = partner.getUserId();
-                public final double updatedRating = newRating;
-                public final double currentRating = partner.getRating();
-                public final LocalDateTime timestamp = LocalDateTime.now();
-            };
-            kafkaTemplate.send("delivery-partner-rating-updates", "rating-updated", event);
+            var event = new PartnerRatingUpdatedEvent(partner.getPartnerId(), partner.getUserId(),
+                newRating, partner.getRating(), Instant.now());
+            kafkaTemplate.send("delivery-partner-rating-updates", event.eventType(), event);
         } catch (Exception e) {
             logger.error("Error publishing partner rating update event: {}", e.getMessage());
         }
@@ -550,13 +592,8 @@ public class DeliveryPartnerService {
 
     private void publishPartnerDeactivationEvent(DeliveryPartner partner, String reason) {
         try {
-            var event = new Object() {
-                public final String partnerId = partner.getPartnerId();
-                public final String userId = partner.getUserId();
-                public final String cancellationReason = reason;
-                public final LocalDateTime timestamp = LocalDateTime.now();
-            };
-            kafkaTemplate.send("delivery-partner-events", "partner-deactivated", event);
+            var event = new PartnerDeactivatedEvent(partner.getPartnerId(), partner.getUserId(), reason, Instant.now());
+            kafkaTemplate.send("delivery-partner-events", event.eventType(), event);
         } catch (Exception e) {
             logger.error("Error publishing partner deactivation event: {}", e.getMessage());
         }
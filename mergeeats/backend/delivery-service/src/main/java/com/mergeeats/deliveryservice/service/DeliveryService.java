@@ -1,26 +1,47 @@
 package com.mergeeats.deliveryservice.service;
 
+import com.mergeeats.common.events.DeliveryEvent;
+import com.mergeeats.common.geo.GeoKernel;
+import com.mergeeats.common.geo.RouteOptimizer;
+import com.mergeeats.common.models.Address;
 import com.mergeeats.common.models.Delivery;
+import com.mergeeats.common.models.DeliveryPartner;
 import com.mergeeats.common.models.DeliveryUpdate;
 import com.mergeeats.common.enums.DeliveryStatus;
 import com.mergeeats.deliveryservice.repository.DeliveryRepository;
 import com.mergeeats.deliveryservice.dto.CreateDeliveryRequest;
 import com.mergeeats.deliveryservice.dto.UpdateLocationRequest;
 import com.mergeeats.deliveryservice.dto.AssignDeliveryRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.data.redis.core.RedisTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class DeliveryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryService.class);
+
+    private static final List<DeliveryStatus> TERMINAL_STATUSES = Arrays.stream(DeliveryStatus.values())
+        .filter(DeliveryStatus::isTerminal)
+        .collect(Collectors.toList());
+
     @Autowired
     private DeliveryRepository deliveryRepository;
 
@@ -30,17 +51,41 @@ public class DeliveryService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private DeliveryPartnerService deliveryPartnerService;
+
+    @Autowired
+    private PartnerMatchingEngine partnerMatchingEngine;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LocationIngestionBuffer locationIngestionBuffer;
+
+    @Autowired
+    private DeliveryTrackingService deliveryTrackingService;
+
+    @Autowired
+    private DeliveryTrackingPublisher deliveryTrackingPublisher;
+
+    @Autowired
+    private DeliveryEtaService deliveryEtaService;
+
+    @Autowired
+    private DeliveryOverdueMonitor deliveryOverdueMonitor;
+
     @Value("${delivery.assignment.max-distance-km:10.0}")
     private double maxAssignmentDistance;
 
-    @Value("${delivery.assignment.max-orders-per-partner:5}")
-    private int maxOrdersPerPartner;
-
     @Value("${delivery.assignment.auto-assignment-enabled:true}")
     private boolean autoAssignmentEnabled;
 
-    @Value("${delivery.tracking.location-cache-ttl-minutes:5}")
-    private int locationCacheTtl;
+    @Value("${delivery.route.time-budget-ms:50}")
+    private long routeTimeBudgetMs;
 
     // Create new delivery
     public Delivery createDelivery(CreateDeliveryRequest request) {
@@ -119,29 +164,13 @@ public class DeliveryService {
             throw new RuntimeException("Delivery is not in pending status");
         }
 
-        // Check if partner can take more deliveries
-        long activeDeliveries = deliveryRepository.countActiveDeliveriesByPartnerId(request.getDeliveryPartnerId());
-        if (activeDeliveries >= maxOrdersPerPartner) {
-            throw new RuntimeException("Delivery partner has reached maximum active deliveries");
-        }
-
-        delivery.setDeliveryPartnerId(request.getDeliveryPartnerId());
-        delivery.setDeliveryPartnerPhone(request.getDeliveryPartnerPhone());
-        delivery.setStatus(DeliveryStatus.ASSIGNED);
-
-        delivery = deliveryRepository.save(delivery);
-
-        // Add tracking update
-        addTrackingUpdate(delivery, DeliveryStatus.ASSIGNED, 
-            "Delivery assigned to partner: " + request.getDeliveryPartnerId());
-
-        // Publish assignment event
-        publishDeliveryEvent("delivery.assigned", delivery);
+        // Reserves a slot on the partner atomically; fails if the partner is at capacity
+        deliveryPartnerService.assignOrder(request.getDeliveryPartnerId(), delivery.getOrderId());
 
-        return delivery;
+        return completeAssignment(delivery, request.getDeliveryPartnerId(), request.getDeliveryPartnerPhone());
     }
 
-    // Auto-assign delivery to nearest available partner
+    // Auto-assign delivery to the best-scoring available partner
     public boolean autoAssignDelivery(String deliveryId) {
         Optional<Delivery> deliveryOpt = deliveryRepository.findById(deliveryId);
         if (deliveryOpt.isEmpty()) {
@@ -153,56 +182,87 @@ public class DeliveryService {
             return false;
         }
 
-        // Find available partners near pickup location
-        double pickupLat = delivery.getPickupAddress().getLatitude();
-        double pickupLng = delivery.getPickupAddress().getLongitude();
-        double maxDistanceMeters = maxAssignmentDistance * 1000; // Convert to meters
-
-        // This would typically query a separate delivery partner service
-        // For now, we'll simulate finding available partners
-        List<String> availablePartners = findAvailablePartnersNearLocation(pickupLat, pickupLng, maxDistanceMeters);
-
-        if (!availablePartners.isEmpty()) {
-            String selectedPartnerId = availablePartners.get(0); // Simple selection logic
-            
-            AssignDeliveryRequest assignRequest = new AssignDeliveryRequest();
-            assignRequest.setDeliveryPartnerId(selectedPartnerId);
-            assignRequest.setDeliveryPartnerPhone(""); // Would be fetched from partner service
-            
-            assignDelivery(deliveryId, assignRequest);
-            return true;
+        Address pickup = delivery.getPickupAddress();
+        if (!hasCoordinates(pickup)) {
+            return false;
         }
 
-        return false;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "no_candidate";
+        try {
+            List<PartnerMatchingEngine.Match> candidates = partnerMatchingEngine.rankCandidates(
+                pickup.getLatitude(), pickup.getLongitude(), maxAssignmentDistance);
+
+            for (PartnerMatchingEngine.Match candidate : candidates) {
+                DeliveryPartner partner = candidate.getPartner();
+                try {
+                    // Claims capacity on the partner first; it fails if another assignment got there before us
+                    deliveryPartnerService.assignOrder(partner.getPartnerId(), delivery.getOrderId());
+                } catch (RuntimeException e) {
+                    continue;
+                }
+
+                completeAssignment(delivery, partner.getPartnerId(), partner.getPhoneNumber());
+                outcome = "assigned";
+                return true;
+            }
+
+            return false;
+        } catch (RuntimeException e) {
+            outcome = "failed";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("delivery.assignment.latency", "outcome", outcome));
+        }
     }
 
     // Update delivery status
     public Delivery updateDeliveryStatus(String deliveryId, DeliveryStatus newStatus, String message) {
+        // Apply the change to the latest reported position
+        locationIngestionBuffer.flush(deliveryId);
+
         Optional<Delivery> deliveryOpt = deliveryRepository.findById(deliveryId);
         if (deliveryOpt.isEmpty()) {
             throw new RuntimeException("Delivery not found with ID: " + deliveryId);
         }
 
         Delivery delivery = deliveryOpt.get();
+        DeliveryStatus previousStatus = delivery.getStatus();
         
-        if (!delivery.getStatus().canTransitionTo(newStatus)) {
-            throw new RuntimeException("Invalid status transition from " + delivery.getStatus() + " to " + newStatus);
+        if (!previousStatus.canTransitionTo(newStatus)) {
+            throw new RuntimeException("Invalid status transition from " + previousStatus + " to " + newStatus);
         }
 
-        delivery.setStatus(newStatus);
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+            .set("status", newStatus)
+            .set("updatedAt", now);
 
         // Set timestamps based on status
-        LocalDateTime now = LocalDateTime.now();
         switch (newStatus) {
             case PICKED_UP:
-                delivery.setActualPickupTime(now);
+                update.set("actualPickupTime", now);
                 break;
             case DELIVERED:
-                delivery.setActualDeliveryTime(now);
+                update.set("actualDeliveryTime", now);
                 break;
         }
 
-        delivery = deliveryRepository.save(delivery);
+        // Only written if nothing moved the delivery on since it was validated; the location,
+        // prediction and overdue fields written meanwhile by other components are kept
+        delivery = mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(deliveryId).and("status").is(previousStatus)),
+            update,
+            FindAndModifyOptions.options().returnNew(true),
+            Delivery.class);
+        if (delivery == null) {
+            throw new RuntimeException("Delivery " + deliveryId + " is no longer in status " + previousStatus);
+        }
+
+        if (newStatus.isTerminal()) {
+            locationIngestionBuffer.close(deliveryId);
+            releasePartner(delivery);
+        }
 
         // Add tracking update
         addTrackingUpdate(delivery, newStatus, message);
@@ -215,26 +275,14 @@ public class DeliveryService {
 
     // Update delivery location
     public void updateDeliveryLocation(String deliveryId, UpdateLocationRequest request) {
-        Optional<Delivery> deliveryOpt = deliveryRepository.findById(deliveryId);
-        if (deliveryOpt.isEmpty()) {
-            throw new RuntimeException("Delivery not found with ID: " + deliveryId);
-        }
-
-        Delivery delivery = deliveryOpt.get();
-        delivery.updateLocation(request.getLongitude(), request.getLatitude());
-        deliveryRepository.save(delivery);
-
-        // Cache location in Redis for real-time tracking
-        String cacheKey = "delivery:location:" + deliveryId;
-        Map<String, Object> locationData = new HashMap<>();
-        locationData.put("latitude", request.getLatitude());
-        locationData.put("longitude", request.getLongitude());
-        locationData.put("timestamp", LocalDateTime.now());
-        
-        redisTemplate.opsForValue().set(cacheKey, locationData, locationCacheTtl, TimeUnit.MINUTES);
+        // Coalesced in memory; Redis, Mongo and the location event are written in batches
+        locationIngestionBuffer.accept(deliveryId, request.getLatitude(), request.getLongitude());
+        deliveryEtaService.onLocation(deliveryId, request.getLatitude(), request.getLongitude());
+    }
 
-        // Publish location update event
-        publishDeliveryEvent("delivery.location.updated", delivery);
+    // Get live ETA
+    public Map<String, Object> getDeliveryEta(String deliveryId) {
+        return deliveryEtaService.getEta(deliveryId);
     }
 
     // Get real-time location from cache
@@ -243,21 +291,37 @@ public class DeliveryService {
         return (Map<String, Object>) redisTemplate.opsForValue().get(cacheKey);
     }
 
+    // Get tracking history, newest first
+    public Page<DeliveryUpdate> getTrackingHistory(String deliveryId, int page, int size) {
+        return deliveryTrackingService.getTrackingHistory(deliveryId, page, size);
+    }
+
     // Cancel delivery
     public Delivery cancelDelivery(String deliveryId, String reason) {
+        locationIngestionBuffer.close(deliveryId);
+
         Optional<Delivery> deliveryOpt = deliveryRepository.findById(deliveryId);
         if (deliveryOpt.isEmpty()) {
             throw new RuntimeException("Delivery not found with ID: " + deliveryId);
         }
 
-        Delivery delivery = deliveryOpt.get();
-        
-        if (delivery.getStatus().isTerminal()) {
-            throw new RuntimeException("Cannot cancel delivery in terminal status: " + delivery.getStatus());
+        if (deliveryOpt.get().getStatus().isTerminal()) {
+            throw new RuntimeException("Cannot cancel delivery in terminal status: " + deliveryOpt.get().getStatus());
         }
 
-        delivery.setStatus(DeliveryStatus.CANCELLED);
-        delivery = deliveryRepository.save(delivery);
+        // Cancels from whatever active state the delivery is in now, so a partner assigned after
+        // the read above is still seen in the returned document and released
+        Delivery delivery = mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(deliveryId).and("status").nin(TERMINAL_STATUSES)),
+            new Update()
+                .set("status", DeliveryStatus.CANCELLED)
+                .set("updatedAt", LocalDateTime.now()),
+            FindAndModifyOptions.options().returnNew(true),
+            Delivery.class);
+        if (delivery == null) {
+            throw new RuntimeException("Cannot cancel delivery " + deliveryId + ": it has already ended");
+        }
+        releasePartner(delivery);
 
         // Add tracking update
         addTrackingUpdate(delivery, DeliveryStatus.CANCELLED, "Delivery cancelled: " + reason);
@@ -307,56 +371,192 @@ public class DeliveryService {
             throw new RuntimeException("Some orders not found for batch delivery");
         }
 
-        String batchId = UUID.randomUUID().toString();
-        
         for (Delivery delivery : deliveries) {
             if (delivery.getStatus() != DeliveryStatus.PENDING) {
                 throw new RuntimeException("All deliveries must be in pending status for batch assignment");
             }
-            
-            delivery.setDeliveryPartnerId(partnerId);
-            delivery.setIsBatchDelivery(true);
-            delivery.setBatchId(batchId);
-            delivery.setBatchOrderIds(orderIds);
-            delivery.setStatus(DeliveryStatus.ASSIGNED);
         }
 
-        deliveries = deliveryRepository.saveAll(deliveries);
+        // Every order takes a slot through the same capacity-guarded reservation as single assignments
+        List<String> reservedOrderIds = new ArrayList<>();
+        DeliveryPartner partner = null;
+        try {
+            for (Delivery delivery : deliveries) {
+                partner = deliveryPartnerService.assignOrder(partnerId, delivery.getOrderId());
+                reservedOrderIds.add(delivery.getOrderId());
+            }
+        } catch (RuntimeException e) {
+            reservedOrderIds.forEach(orderId -> deliveryPartnerService.releaseOrder(partnerId, orderId));
+            throw e;
+        }
+
+        String batchId = UUID.randomUUID().toString();
+        applyBatchRoute(deliveries);
+
+        // Each delivery is only taken while it is still PENDING; if one was assigned or cancelled
+        // meanwhile, the whole batch is undone
+        List<Delivery> assigned = new ArrayList<>();
+        for (Delivery delivery : deliveries) {
+            Update update = new Update()
+                .set("deliveryPartnerId", partnerId)
+                .set("deliveryPartnerPhone", partner.getPhoneNumber())
+                .set("isBatchDelivery", true)
+                .set("batchId", batchId)
+                .set("batchOrderIds", orderIds)
+                .set("status", DeliveryStatus.ASSIGNED)
+                .set("updatedAt", LocalDateTime.now());
+            if (delivery.getOptimizedRoute() != null) {
+                update.set("optimizedRoute", delivery.getOptimizedRoute())
+                    .set("routeDistance", delivery.getRouteDistance());
+            }
+
+            Delivery saved = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(delivery.getDeliveryId()).and("status").is(DeliveryStatus.PENDING)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Delivery.class);
+            if (saved == null) {
+                rollBackBatch(batchId, partnerId, reservedOrderIds);
+                throw new RuntimeException("Delivery for order " + delivery.getOrderId() + " is no longer in pending status");
+            }
+            assigned.add(saved);
+        }
+        assigned.forEach(deliveryOverdueMonitor::track);
 
         // Publish batch assignment event
         Map<String, Object> batchData = new HashMap<>();
         batchData.put("batchId", batchId);
         batchData.put("partnerId", partnerId);
-        batchData.put("deliveries", deliveries);
+        batchData.put("deliveries", assigned);
         kafkaTemplate.send("delivery.batch.assigned", batchData);
 
-        return deliveries;
+        return assigned;
     }
 
     // Helper methods
-    private void addTrackingUpdate(Delivery delivery, DeliveryStatus status, String message) {
-        if (delivery.getTrackingUpdates() == null) {
-            delivery.setTrackingUpdates(new ArrayList<>());
+    private void applyBatchRoute(List<Delivery> deliveries) {
+        // All orders of a batch are picked up together, at the first delivery's pickup address
+        Address pickup = deliveries.get(0).getPickupAddress();
+        if (!hasCoordinates(pickup) || !deliveries.stream().allMatch(d -> hasCoordinates(d.getDeliveryAddress()))) {
+            return;
         }
 
-        DeliveryUpdate update = new DeliveryUpdate(status, message, LocalDateTime.now());
-        if (delivery.getCurrentLocation() != null) {
-            update.setLocation(delivery.getCurrentLocation());
+        double[] latitudes = new double[deliveries.size()];
+        double[] longitudes = new double[deliveries.size()];
+        for (int i = 0; i < deliveries.size(); i++) {
+            latitudes[i] = deliveries.get(i).getDeliveryAddress().getLatitude();
+            longitudes[i] = deliveries.get(i).getDeliveryAddress().getLongitude();
         }
 
-        delivery.getTrackingUpdates().add(update);
-        deliveryRepository.save(delivery);
+        RouteOptimizer.Route route = new RouteOptimizer(routeTimeBudgetMs)
+            .optimize(pickup.getLatitude(), pickup.getLongitude(), latitudes, longitudes);
+
+        List<double[]> optimizedRoute = new ArrayList<>();
+        optimizedRoute.add(new double[]{pickup.getLongitude(), pickup.getLatitude()});
+        for (int stop : route.getStopOrder()) {
+            optimizedRoute.add(new double[]{longitudes[stop], latitudes[stop]});
+        }
+
+        for (Delivery delivery : deliveries) {
+            delivery.setOptimizedRoute(optimizedRoute);
+            delivery.setRouteDistance(route.getDistanceKm());
+        }
+    }
+
+    /**
+     * Moves a PENDING delivery to the partner whose slot has already been reserved. The delivery is
+     * only taken if it is still PENDING; otherwise the reservation is given back.
+     */
+    private Delivery completeAssignment(Delivery delivery, String partnerId, String partnerPhone) {
+        Delivery assigned = mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(delivery.getDeliveryId()).and("status").is(DeliveryStatus.PENDING)),
+            new Update()
+                .set("deliveryPartnerId", partnerId)
+                .set("deliveryPartnerPhone", partnerPhone)
+                .set("status", DeliveryStatus.ASSIGNED)
+                .set("updatedAt", LocalDateTime.now()),
+            FindAndModifyOptions.options().returnNew(true),
+            Delivery.class);
+
+        if (assigned == null) {
+            deliveryPartnerService.releaseOrder(partnerId, delivery.getOrderId());
+            throw new RuntimeException("Delivery is not in pending status");
+        }
+
+        // Add tracking update
+        addTrackingUpdate(assigned, DeliveryStatus.ASSIGNED, "Delivery assigned to partner: " + partnerId);
+
+        // Publish assignment event
+        publishDeliveryEvent("delivery.assigned", assigned);
+
+        return assigned;
+    }
+
+    // Puts the deliveries already taken by a failed batch back to PENDING and frees all its slots
+    private void rollBackBatch(String batchId, String partnerId, List<String> reservedOrderIds) {
+        mongoTemplate.updateMulti(
+            Query.query(Criteria.where("batchId").is(batchId).and("status").is(DeliveryStatus.ASSIGNED)),
+            new Update()
+                .set("status", DeliveryStatus.PENDING)
+                .set("isBatchDelivery", false)
+                .unset("deliveryPartnerId")
+                .unset("deliveryPartnerPhone")
+                .unset("batchId")
+                .unset("batchOrderIds")
+                .unset("optimizedRoute")
+                .unset("routeDistance")
+                .set("updatedAt", LocalDateTime.now()),
+            Delivery.class);
+        reservedOrderIds.forEach(orderId -> deliveryPartnerService.releaseOrder(partnerId, orderId));
+    }
+
+    /**
+     * Gives the partner's slot back once a delivery has left the active states. A delivered order
+     * counts as completed unless the partner already completed it through the partner endpoint;
+     * any other end just releases the slot.
+     */
+    private void releasePartner(Delivery delivery) {
+        String partnerId = delivery.getDeliveryPartnerId();
+        if (partnerId == null) {
+            return;
+        }
+
+        if (delivery.getStatus() != DeliveryStatus.DELIVERED) {
+            deliveryPartnerService.releaseOrder(partnerId, delivery.getOrderId());
+            return;
+        }
+
+        boolean stillActive = deliveryPartnerService.getPartnerById(partnerId)
+            .map(partner -> partner.getActiveOrderIds() != null && partner.getActiveOrderIds().contains(delivery.getOrderId()))
+            .orElse(false);
+        if (stillActive) {
+            try {
+                deliveryPartnerService.completeOrder(partnerId, delivery.getOrderId());
+            } catch (RuntimeException e) {
+                // Completed through the partner endpoint in the meantime
+                logger.debug("Order {} was already completed for partner {}", delivery.getOrderId(), partnerId);
+            }
+        }
+    }
+
+    private boolean hasCoordinates(Address address) {
+        return address != null && address.getLatitude() != null && address.getLongitude() != null;
+    }
+
+    private void addTrackingUpdate(Delivery delivery, DeliveryStatus status, String message) {
+        // Appended to the tracking history collection; the delivery itself is not written again
+        deliveryTrackingService.record(delivery, status, message);
     }
 
     private void publishDeliveryEvent(String eventType, Delivery delivery) {
-        Map<String, Object> event = new HashMap<>();
-        event.put("eventType", eventType);
-        event.put("deliveryId", delivery.getDeliveryId());
-        event.put("orderId", delivery.getOrderId());
-        event.put("status", delivery.getStatus());
-        event.put("timestamp", LocalDateTime.now());
+        DeliveryEvent event = new DeliveryEvent(eventType, delivery.getDeliveryId(), delivery.getOrderId(),
+            delivery.getStatus(), Instant.now());
         
-        kafkaTemplate.send("delivery.events", event);
+        // Keyed by delivery so that the events of one delivery stay in order
+        kafkaTemplate.send("delivery.events", delivery.getDeliveryId(), event);
+        deliveryTrackingPublisher.onStatus(delivery.getDeliveryId(), delivery.getStatus());
+        deliveryEtaService.onStatus(delivery);
+        deliveryOverdueMonitor.track(delivery);
     }
 
     private String generateTrackingNumber() {
@@ -364,19 +564,6 @@ public class DeliveryService {
     }
 
     private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radius of the earth in km
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c; // Distance in km
-    }
-
-    private List<String> findAvailablePartnersNearLocation(double latitude, double longitude, double maxDistanceMeters) {
-        // This would typically call an external delivery partner service
-        // For now, return a mock list
-        return Arrays.asList("partner1", "partner2", "partner3");
+        return GeoKernel.haversineKm(lat1, lon1, lat2, lon2); // Distance in km
     }
 }
\ No newline at end of file
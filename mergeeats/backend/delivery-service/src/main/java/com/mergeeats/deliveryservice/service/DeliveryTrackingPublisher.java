@@ -0,0 +1,233 @@
+package com.mergeeats.deliveryservice.service;
+
+import com.mergeeats.common.enums.DeliveryStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes live location and status changes of deliveries to STOMP subscribers of
+ * /topic/deliveries.{deliveryId}.
+ *
+ * Changes are merged per delivery and sent once per push interval, so every subscriber receives at
+ * most one message per delivery and interval however often the rider pings. A message only carries
+ * what changed since the previous one (the latest position, status and ETA, or any of them); clients
+ * load the full state once with GET /deliveries/{id} and apply the pushes on top.
+ *
+ * Subscriptions are counted per instance. With the in-memory broker, deliveries nobody watches are
+ * not pushed at all; with the broker relay, subscribers may sit on any instance, so every change is
+ * pushed to the relay.
+ */
+@Component
+public class DeliveryTrackingPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryTrackingPublisher.class);
+
+    public static final String TOPIC_PREFIX = "/topic/deliveries.";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${delivery.websocket.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    private final Map<String, PendingPush> pending = new ConcurrentHashMap<>();
+
+    // Subscriber count per delivery, and the delivery of every subscription by session
+    private final Map<String, AtomicInteger> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> subscriptionsBySession = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+
+    private Timer pushLatency;
+    private Counter pushCounter;
+
+    /**
+     * Changes of one delivery waiting for the next push.
+     */
+    private static final class PendingPush {
+
+        final long firstChangeNanos;
+        final DeliveryStatus status;
+        final Double latitude;
+        final Double longitude;
+        final LocalDateTime locationTimestamp;
+        final LocalDateTime estimatedDeliveryTime;
+
+        PendingPush(long firstChangeNanos, DeliveryStatus status, Double latitude, Double longitude,
+                    LocalDateTime locationTimestamp, LocalDateTime estimatedDeliveryTime) {
+            this.firstChangeNanos = firstChangeNanos;
+            this.status = status;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.locationTimestamp = locationTimestamp;
+            this.estimatedDeliveryTime = estimatedDeliveryTime;
+        }
+
+        PendingPush withLocation(double latitude, double longitude, LocalDateTime timestamp) {
+            return new PendingPush(firstChangeNanos, status, latitude, longitude, timestamp, estimatedDeliveryTime);
+        }
+
+        PendingPush withStatus(DeliveryStatus status) {
+            return new PendingPush(firstChangeNanos, status, latitude, longitude, locationTimestamp, estimatedDeliveryTime);
+        }
+
+        PendingPush withEstimate(LocalDateTime estimatedDeliveryTime) {
+            return new PendingPush(firstChangeNanos, status, latitude, longitude, locationTimestamp, estimatedDeliveryTime);
+        }
+    }
+
+    @PostConstruct
+    void registerMeters() {
+        pushLatency = Timer.builder("delivery.tracking.push.latency")
+                .description("Time from a tracked change to its push to subscribers")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        pushCounter = meterRegistry.counter("delivery.tracking.pushes");
+        meterRegistry.gauge("delivery.tracking.subscribers", subscriptionCount);
+        meterRegistry.gauge("delivery.tracking.watched-deliveries", subscribers, Map::size);
+    }
+
+    public void onLocation(String deliveryId, double latitude, double longitude, LocalDateTime timestamp) {
+        if (!isWatched(deliveryId)) {
+            return;
+        }
+        pending.compute(deliveryId, (id, push) -> push == null
+                ? new PendingPush(System.nanoTime(), null, latitude, longitude, timestamp, null)
+                : push.withLocation(latitude, longitude, timestamp));
+    }
+
+    public void onStatus(String deliveryId, DeliveryStatus status) {
+        if (!isWatched(deliveryId)) {
+            return;
+        }
+        pending.compute(deliveryId, (id, push) -> push == null
+                ? new PendingPush(System.nanoTime(), status, null, null, null, null)
+                : push.withStatus(status));
+    }
+
+    public void onEta(String deliveryId, LocalDateTime estimatedDeliveryTime) {
+        if (!isWatched(deliveryId)) {
+            return;
+        }
+        pending.compute(deliveryId, (id, push) -> push == null
+                ? new PendingPush(System.nanoTime(), null, null, null, null, estimatedDeliveryTime)
+                : push.withEstimate(estimatedDeliveryTime));
+    }
+
+    @Scheduled(fixedRateString = "${delivery.websocket.push-interval-ms:1000}")
+    public void push() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> deliveryIds = new ArrayList<>(pending.keySet());
+        for (String deliveryId : deliveryIds) {
+            PendingPush push = pending.remove(deliveryId);
+            if (push == null) {
+                continue;
+            }
+
+            try {
+                messagingTemplate.convertAndSend(TOPIC_PREFIX + deliveryId, toMessage(deliveryId, push));
+                pushCounter.increment();
+                pushLatency.record(System.nanoTime() - push.firstChangeNanos, TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                logger.warn("Could not push tracking update of delivery {}: {}", deliveryId, e.getMessage());
+            }
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX) || accessor.getSessionId() == null) {
+            return;
+        }
+
+        String deliveryId = destination.substring(TOPIC_PREFIX.length());
+        String previous = subscriptionsBySession
+                .computeIfAbsent(accessor.getSessionId(), session -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), deliveryId);
+        if (previous == null) {
+            subscribers.computeIfAbsent(deliveryId, id -> new AtomicInteger()).incrementAndGet();
+            subscriptionCount.incrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = accessor.getSessionId() != null
+                ? subscriptionsBySession.get(accessor.getSessionId()) : null;
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            removeSubscription(subscriptions.remove(accessor.getSubscriptionId()));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = subscriptionsBySession.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::removeSubscription);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscriptionCount.get();
+    }
+
+    private void removeSubscription(String deliveryId) {
+        if (deliveryId == null) {
+            return;
+        }
+        subscriptionCount.decrementAndGet();
+        subscribers.computeIfPresent(deliveryId, (id, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    private boolean isWatched(String deliveryId) {
+        return relayEnabled || subscribers.containsKey(deliveryId);
+    }
+
+    private Map<String, Object> toMessage(String deliveryId, PendingPush push) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("deliveryId", deliveryId);
+        if (push.status != null) {
+            message.put("status", push.status);
+        }
+        if (push.latitude != null) {
+            message.put("latitude", push.latitude);
+            message.put("longitude", push.longitude);
+            message.put("timestamp", push.locationTimestamp);
+        }
+        if (push.estimatedDeliveryTime != null) {
+            message.put("estimatedDeliveryTime", push.estimatedDeliveryTime);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,143 @@
+package com.mergeeats.deliveryservice.service;
+
+import com.mergeeats.common.enums.DeliveryStatus;
+import com.mergeeats.common.models.Delivery;
+import com.mergeeats.common.models.DeliveryUpdate;
+import com.mergeeats.deliveryservice.repository.DeliveryUpdateRepository;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only tracking history of deliveries.
+ *
+ * Every status change is one insert into the delivery_updates time-series collection, which Mongo
+ * buckets by delivery and time, instead of a push onto the delivery document followed by a full
+ * save. History is read back a page at a time, newest first.
+ */
+@Service
+public class DeliveryTrackingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryTrackingService.class);
+
+    private static final String LEGACY_FIELD = "trackingUpdates";
+
+    @Autowired
+    private DeliveryUpdateRepository deliveryUpdateRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${delivery.tracking.history-max-page-size:100}")
+    private int maxPageSize;
+
+    // Runs while the context starts, before HTTP and Kafka traffic reaches the deliveries
+    @PostConstruct
+    void init() {
+        ensureCollection();
+        migrateEmbeddedHistory();
+    }
+
+    // Mongo creates a plain collection on the first insert, so the time-series one must exist before that
+    private void ensureCollection() {
+        if (!mongoTemplate.collectionExists(DeliveryUpdate.class)) {
+            mongoTemplate.createCollection(DeliveryUpdate.class);
+            logger.info("Created time-series collection {}", mongoTemplate.getCollectionName(DeliveryUpdate.class));
+        }
+    }
+
+    // Record a status change of a delivery, at its last known position
+    public DeliveryUpdate record(Delivery delivery, DeliveryStatus status, String message) {
+        return deliveryUpdateRepository.insert(newUpdate(delivery, status, message, LocalDateTime.now()));
+    }
+
+    // Record status changes of several deliveries with one insert
+    public void recordAll(List<DeliveryUpdate> updates) {
+        if (!updates.isEmpty()) {
+            deliveryUpdateRepository.insert(updates);
+        }
+    }
+
+    public DeliveryUpdate newUpdate(Delivery delivery, DeliveryStatus status, String message, LocalDateTime timestamp) {
+        DeliveryUpdate update = new DeliveryUpdate(delivery.getDeliveryId(), status, message, timestamp);
+        if (delivery.getCurrentLocation() != null) {
+            update.setLocation(delivery.getCurrentLocation());
+        }
+        return update;
+    }
+
+    // Get one page of the tracking history of a delivery, newest first
+    public Page<DeliveryUpdate> getTrackingHistory(String deliveryId, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), maxPageSize),
+                Sort.by(Sort.Direction.DESC, "timestamp"));
+        return deliveryUpdateRepository.findByDeliveryId(deliveryId, pageRequest);
+    }
+
+    /**
+     * Moves history still embedded in delivery documents written before the history had its own
+     * collection. Runs at startup, before any request can save a delivery without its unmapped
+     * history. Each delivery is claimed by one findAndModify that reads and
+     * removes its embedded list, so instances starting together never move the same history twice.
+     */
+    private void migrateEmbeddedHistory() {
+        String deliveries = mongoTemplate.getCollectionName(Delivery.class);
+        int migratedDeliveries = 0;
+        int migratedUpdates = 0;
+
+        while (true) {
+            Query query = Query.query(Criteria.where(LEGACY_FIELD).exists(true));
+            query.fields().include(LEGACY_FIELD);
+            Document delivery = mongoTemplate.findAndModify(query, new Update().unset(LEGACY_FIELD), Document.class, deliveries);
+            if (delivery == null) {
+                break;
+            }
+
+            Object deliveryId = delivery.get("_id");
+            List<DeliveryUpdate> updates = new ArrayList<>();
+            if (delivery.get(LEGACY_FIELD) instanceof List<?> entries) {
+                for (Object entry : entries) {
+                    if (entry instanceof Document document) {
+                        DeliveryUpdate update = mongoTemplate.getConverter().read(DeliveryUpdate.class, document);
+                        if (update.getTimestamp() == null) {
+                            continue;
+                        }
+                        update.setId(null);
+                        update.setDeliveryId(deliveryId.toString());
+                        updates.add(update);
+                    }
+                }
+            }
+
+            try {
+                recordAll(updates);
+            } catch (RuntimeException e) {
+                // Already claimed, so put the history back for the next start to pick up
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(deliveryId)),
+                        new Update().set(LEGACY_FIELD, delivery.get(LEGACY_FIELD)), deliveries);
+                throw e;
+            }
+            migratedDeliveries++;
+            migratedUpdates += updates.size();
+        }
+
+        if (migratedDeliveries > 0) {
+            logger.info("Moved {} tracking updates of {} deliveries to {}", migratedUpdates, migratedDeliveries,
+                    mongoTemplate.getCollectionName(DeliveryUpdate.class));
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.mergeeats.deliveryservice.service;
+
+import com.mergeeats.common.events.DeliveryEvent;
+import com.mergeeats.common.models.Delivery;
+import com.mergeeats.deliveryservice.repository.DeliveryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion path for delivery GPS pings.
+ *
+ * A ping only replaces the latest position of its delivery in memory, so a burst of pings costs
+ * one write. The latest positions go to Redis in one pipelined batch every few hundred
+ * milliseconds (the real-time view read by getDeliveryLocation) and to Mongo in one bulk update on
+ * a slower cadence, together with a coalesced delivery.location.updated event. Status changes flush
+ * their delivery right away so the stored document is current when it changes state.
+ *
+ * Positions that were accepted but not yet written to Mongo are lost if the service stops; Redis
+ * still holds them for the cache TTL and riders keep sending pings.
+ */
+@Component
+public class LocationIngestionBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationIngestionBuffer.class);
+
+    private static final String CACHE_KEY_PREFIX = "delivery:location:";
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private DeliveryTrackingPublisher deliveryTrackingPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${delivery.tracking.location-cache-ttl-minutes:5}")
+    private int locationCacheTtl;
+
+    private final Map<String, LocationSample> pendingRedis = new ConcurrentHashMap<>();
+    private final Map<String, LocationSample> pendingMongo = new ConcurrentHashMap<>();
+
+    // Deliveries known to exist, with the time of their last ping, so pings do not hit Mongo
+    private final Map<String, Long> knownDeliveries = new ConcurrentHashMap<>();
+
+    private Counter ingestedCounter;
+    private Counter redisWrittenCounter;
+    private Counter mongoWrittenCounter;
+
+    /**
+     * The latest position reported for a delivery.
+     */
+    static final class LocationSample {
+
+        final double latitude;
+        final double longitude;
+        final LocalDateTime timestamp;
+
+        LocationSample(double latitude, double longitude, LocalDateTime timestamp) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timestamp = timestamp;
+        }
+    }
+
+    @PostConstruct
+    void registerMeters() {
+        ingestedCounter = meterRegistry.counter("delivery.location.ingested");
+        redisWrittenCounter = meterRegistry.counter("delivery.location.written", "store", "redis");
+        mongoWrittenCounter = meterRegistry.counter("delivery.location.written", "store", "mongo");
+        meterRegistry.gauge("delivery.location.pending", pendingMongo, Map::size);
+    }
+
+    /**
+     * Accepts a ping. Only the first ping of a delivery is checked against Mongo.
+     */
+    public void accept(String deliveryId, double latitude, double longitude) {
+        long now = System.currentTimeMillis();
+        if (knownDeliveries.replace(deliveryId, now) == null) {
+            if (!deliveryRepository.existsById(deliveryId)) {
+                throw new RuntimeException("Delivery not found with ID: " + deliveryId);
+            }
+            knownDeliveries.put(deliveryId, now);
+        }
+
+        LocationSample sample = new LocationSample(latitude, longitude, LocalDateTime.now());
+        pendingRedis.put(deliveryId, sample);
+        pendingMongo.put(deliveryId, sample);
+        deliveryTrackingPublisher.onLocation(deliveryId, latitude, longitude, sample.timestamp);
+        ingestedCounter.increment();
+    }
+
+    /**
+     * Writes the buffered position of one delivery to Mongo now. Called before a status change so the
+     * change is applied to the current position.
+     */
+    public void flush(String deliveryId) {
+        LocationSample sample = pendingMongo.remove(deliveryId);
+        if (sample != null) {
+            mongoTemplate.updateFirst(locationQuery(deliveryId, sample), locationUpdate(sample), Delivery.class);
+            mongoWrittenCounter.increment();
+        }
+    }
+
+    /**
+     * Flushes and forgets a delivery that will not send pings any more.
+     */
+    public void close(String deliveryId) {
+        flush(deliveryId);
+        pendingRedis.remove(deliveryId);
+        knownDeliveries.remove(deliveryId);
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.location.redis-flush-interval-ms:250}")
+    public void flushToRedis() {
+        Map<String, LocationSample> batch = drain(pendingRedis);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    for (Map.Entry<String, LocationSample> entry : batch.entrySet()) {
+                        LocationSample sample = entry.getValue();
+                        Map<String, Object> locationData = new HashMap<>();
+                        locationData.put("latitude", sample.latitude);
+                        locationData.put("longitude", sample.longitude);
+                        locationData.put("timestamp", sample.timestamp);
+                        operations.opsForValue().set(CACHE_KEY_PREFIX + entry.getKey(), locationData,
+                                locationCacheTtl, TimeUnit.MINUTES);
+                    }
+                    return null;
+                }
+            });
+            redisWrittenCounter.increment(batch.size());
+        } catch (Exception e) {
+            // Put back what has not been superseded by a newer ping in the meantime
+            batch.forEach(pendingRedis::putIfAbsent);
+            logger.warn("Could not write {} delivery locations to Redis: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.location.mongo-flush-interval-ms:5000}")
+    public void flushToMongo() {
+        evictIdleDeliveries();
+
+        Map<String, LocationSample> batch = drain(pendingMongo);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Delivery.class);
+            for (Map.Entry<String, LocationSample> entry : batch.entrySet()) {
+                bulkOperations.updateOne(locationQuery(entry.getKey(), entry.getValue()), locationUpdate(entry.getValue()));
+            }
+            bulkOperations.execute();
+            mongoWrittenCounter.increment(batch.size());
+        } catch (Exception e) {
+            batch.forEach(pendingMongo::putIfAbsent);
+            logger.warn("Could not write {} delivery locations to Mongo: {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        Instant timestamp = Instant.now();
+        for (String deliveryId : batch.keySet()) {
+            kafkaTemplate.send("delivery.events", deliveryId,
+                    new DeliveryEvent("delivery.location.updated", deliveryId, null, null, timestamp));
+        }
+    }
+
+    public int pendingCount() {
+        return pendingMongo.size();
+    }
+
+    // A drained batch can land after flush(deliveryId) wrote a newer ping; it must not move the position back
+    private Query locationQuery(String deliveryId, LocationSample sample) {
+        return Query.query(Criteria.where("_id").is(deliveryId).orOperator(
+                Criteria.where("updatedAt").lt(sample.timestamp),
+                Criteria.where("updatedAt").exists(false)));
+    }
+
+    private Update locationUpdate(LocationSample sample) {
+        return new Update()
+                .set("currentLocation", new double[]{sample.longitude, sample.latitude})
+                .set("updatedAt", sample.timestamp);
+    }
+
+    /**
+     * Removes every entry from the map. A ping that arrives while draining either makes it into this
+     * batch or stays for the next one; it is never lost.
+     */
+    private static Map<String, LocationSample> drain(Map<String, LocationSample> pending) {
+        Map<String, LocationSample> batch = new HashMap<>();
+        List<String> deliveryIds = new ArrayList<>(pending.keySet());
+        for (String deliveryId : deliveryIds) {
+            LocationSample sample = pending.remove(deliveryId);
+            if (sample != null) {
+                batch.put(deliveryId, sample);
+            }
+        }
+        return batch;
+    }
+
+    private void evictIdleDeliveries() {
+        long idleBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(locationCacheTtl);
+        knownDeliveries.values().removeIf(lastPing -> lastPing < idleBefore);
+    }
+}
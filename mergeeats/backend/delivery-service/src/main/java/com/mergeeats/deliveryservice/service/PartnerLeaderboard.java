@@ -0,0 +1,171 @@
+package com.mergeeats.deliveryservice.service;
+
+import com.mergeeats.common.models.DeliveryPartner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Ranking of the eligible delivery partners (active, verified, with more than the minimum number of
+ * completed deliveries), kept as a Redis sorted set so top-N and rank lookups cost O(log n).
+ *
+ * The score orders by rating first and completion rate second. {@link DeliveryPartnerService}
+ * pushes every completion, cancellation, rating and verification change through
+ * {@link #onPartnerChanged}, and a periodic rebuild from Mongo repairs any update that was lost
+ * while Redis was unreachable.
+ */
+@Component
+public class PartnerLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartnerLeaderboard.class);
+
+    static final String KEY = "delivery:partners:leaderboard";
+
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${delivery.leaderboard.min-completed-deliveries:10}")
+    private int minCompletedDeliveries;
+
+    /**
+     * A partner's position on the leaderboard; rank 1 is the best.
+     */
+    public static final class Ranking {
+
+        private final String partnerId;
+        private final long rank;
+        private final long rankedPartners;
+
+        Ranking(String partnerId, long rank, long rankedPartners) {
+            this.partnerId = partnerId;
+            this.rank = rank;
+            this.rankedPartners = rankedPartners;
+        }
+
+        public String getPartnerId() {
+            return partnerId;
+        }
+
+        public long getRank() {
+            return rank;
+        }
+
+        public long getRankedPartners() {
+            return rankedPartners;
+        }
+    }
+
+    // Rating to two decimals in the thousands, completion rate (0-100) below, so rating always wins
+    static double score(DeliveryPartner partner) {
+        double rating = partner.getRating() != null ? partner.getRating() : 0.0;
+        return Math.round(rating * 100.0) * 1000.0 + partner.getCompletionRate();
+    }
+
+    boolean isEligible(DeliveryPartner partner) {
+        return Boolean.TRUE.equals(partner.getIsActive()) && Boolean.TRUE.equals(partner.getIsVerified())
+                && partner.getCompletedDeliveries() != null && partner.getCompletedDeliveries() > minCompletedDeliveries;
+    }
+
+    // Add, move or remove a partner after a change to its statistics or status
+    public void onPartnerChanged(DeliveryPartner partner) {
+        try {
+            if (isEligible(partner)) {
+                redisTemplate.opsForZSet().add(KEY, partner.getPartnerId(), score(partner));
+            } else {
+                redisTemplate.opsForZSet().remove(KEY, partner.getPartnerId());
+            }
+        } catch (Exception e) {
+            // Repaired by the next rebuild
+            logger.warn("Could not update leaderboard for partner {}: {}", partner.getPartnerId(), e.getMessage());
+        }
+    }
+
+    // Ids of the best partners, best first
+    public List<String> topPartnerIds(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Set<String> ids = redisTemplate.opsForZSet().reverseRange(KEY, 0, limit - 1);
+        return ids != null ? new ArrayList<>(ids) : List.of();
+    }
+
+    // Position of a partner, or null when it is not ranked
+    public Ranking getRanking(String partnerId) {
+        Long rank = redisTemplate.opsForZSet().reverseRank(KEY, partnerId);
+        if (rank == null) {
+            return null;
+        }
+        Long rankedPartners = redisTemplate.opsForZSet().zCard(KEY);
+        return new Ranking(partnerId, rank + 1, rankedPartners != null ? rankedPartners : rank + 1);
+    }
+
+    /**
+     * Recomputes the leaderboard from Mongo into a scratch key and swaps it in with one RENAME, so
+     * readers never see a partial board. Updates made while the rebuild runs may be overwritten by
+     * the older values read here and are corrected by the next change of the partner.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${delivery.leaderboard.rebuild-interval-ms:3600000}",
+            initialDelayString = "${delivery.leaderboard.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        String scratchKey = KEY + ":rebuild";
+        Query query = Query.query(Criteria.where("isActive").is(true)
+                .and("isVerified").is(true)
+                .and("completedDeliveries").gt(minCompletedDeliveries));
+        query.fields().include("rating", "totalDeliveries", "completedDeliveries");
+
+        try {
+            redisTemplate.delete(scratchKey);
+            int ranked = 0;
+            Set<TypedTuple<String>> chunk = new HashSet<>();
+            try (Stream<DeliveryPartner> partners = mongoTemplate.stream(query, DeliveryPartner.class)) {
+                Iterator<DeliveryPartner> iterator = partners.iterator();
+                while (iterator.hasNext()) {
+                    DeliveryPartner partner = iterator.next();
+                    chunk.add(new DefaultTypedTuple<>(partner.getPartnerId(), score(partner)));
+                    if (chunk.size() == REBUILD_CHUNK_SIZE) {
+                        redisTemplate.opsForZSet().add(scratchKey, chunk);
+                        ranked += chunk.size();
+                        chunk.clear();
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                redisTemplate.opsForZSet().add(scratchKey, chunk);
+                ranked += chunk.size();
+            }
+
+            if (ranked > 0) {
+                redisTemplate.rename(scratchKey, KEY);
+            } else {
+                redisTemplate.delete(KEY);
+            }
+            logger.info("Rebuilt partner leaderboard with {} partners", ranked);
+        } catch (Exception e) {
+            logger.warn("Could not rebuild partner leaderboard: {}", e.getMessage());
+        }
+    }
+}
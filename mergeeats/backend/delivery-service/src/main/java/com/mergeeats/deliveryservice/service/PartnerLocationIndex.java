@@ -0,0 +1,262 @@
+package com.mergeeats.deliveryservice.service;
+
+import com.mergeeats.common.geo.GeoKernel;
+import com.mergeeats.common.models.Address;
+import com.mergeeats.common.models.DeliveryPartner;
+import com.mergeeats.common.models.DeliveryPartner.AvailabilityStatus;
+import com.mergeeats.deliveryservice.repository.DeliveryPartnerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Live spatial index of the online delivery partners (every status except OFFLINE, active and
+ * verified, with a known position).
+ *
+ * Partners are bucketed into square grid cells. {@link DeliveryPartnerService} pushes every saved
+ * partner through {@link #onPartnerChanged}, so location and availability changes are visible to
+ * the next query without touching Mongo; Mongo is only read once at startup to rebuild the index.
+ * Updates of one partner are serialized, queries never block, and a partner moving between cells is
+ * only ever reported from the cell it currently belongs to. Snapshots can arrive out of order from
+ * concurrent updates, so one older than the partner's last applied snapshot (by updatedAt) is ignored.
+ *
+ * Indexed partners are the saved documents themselves and must be treated as read-only snapshots;
+ * load a partner from the repository before changing it. The grid does not wrap at the
+ * antimeridian.
+ */
+@Component
+public class PartnerLocationIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartnerLocationIndex.class);
+
+    private static final double EPSILON_DEGREES = 1e-9;
+
+    @Autowired
+    private DeliveryPartnerRepository deliveryPartnerRepository;
+
+    @Value("${delivery.partner-index.cell-size-km:1.0}")
+    private double cellSizeKm = 1.0;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+
+    // updatedAt of the snapshot that took a partner out of the index, so older ones do not put it back
+    private final Map<String, LocalDateTime> removedAt = new ConcurrentHashMap<>();
+
+    /**
+     * A partner found by a proximity query, with its great-circle distance to the query point.
+     */
+    public static final class NearbyPartner {
+
+        private final DeliveryPartner partner;
+        private final double distanceKm;
+
+        NearbyPartner(DeliveryPartner partner, double distanceKm) {
+            this.partner = partner;
+            this.distanceKm = distanceKm;
+        }
+
+        public DeliveryPartner getPartner() {
+            return partner;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    private static final class Entry {
+
+        final DeliveryPartner partner;
+        final double latitude;
+        final double longitude;
+        final long cellKey;
+
+        Entry(DeliveryPartner partner, double latitude, double longitude, long cellKey) {
+            this.partner = partner;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cellKey = cellKey;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        entries.clear();
+        cells.clear();
+        removedAt.clear();
+
+        List<DeliveryPartner> onlinePartners = deliveryPartnerRepository.findByAvailabilityStatusInAndIsActiveTrueAndIsVerifiedTrue(
+                List.of(AvailabilityStatus.AVAILABLE, AvailabilityStatus.BUSY, AvailabilityStatus.ON_BREAK));
+        onlinePartners.forEach(this::onPartnerChanged);
+
+        logger.info("Partner location index rebuilt with {} online partners", size());
+    }
+
+    /**
+     * Inserts, moves or removes a partner according to its saved state.
+     */
+    public void onPartnerChanged(DeliveryPartner partner) {
+        if (partner.getPartnerId() == null) {
+            return;
+        }
+
+        entries.compute(partner.getPartnerId(), (partnerId, previous) -> {
+            LocalDateTime lastApplied = previous != null ? previous.partner.getUpdatedAt() : removedAt.get(partnerId);
+            if (isOlder(partner.getUpdatedAt(), lastApplied)) {
+                return previous;
+            }
+
+            Entry next = isIndexable(partner) ? newEntry(partner) : null;
+            if (next == null && partner.getUpdatedAt() != null) {
+                removedAt.put(partnerId, partner.getUpdatedAt());
+            } else {
+                removedAt.remove(partnerId);
+            }
+            if (previous != null && (next == null || previous.cellKey != next.cellKey)) {
+                removeFromCell(previous.cellKey, partnerId);
+            }
+            if (next != null && (previous == null || previous.cellKey != next.cellKey)) {
+                cells.compute(next.cellKey, (key, members) -> {
+                    Set<String> cell = members != null ? members : ConcurrentHashMap.newKeySet();
+                    cell.add(partnerId);
+                    return cell;
+                });
+            }
+            return next;
+        });
+    }
+
+    // Mongo keeps milliseconds, so snapshots are compared at that precision
+    private static boolean isOlder(LocalDateTime updatedAt, LocalDateTime lastApplied) {
+        return updatedAt != null && lastApplied != null
+                && updatedAt.truncatedTo(ChronoUnit.MILLIS).isBefore(lastApplied.truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    public void remove(String partnerId) {
+        entries.computeIfPresent(partnerId, (id, previous) -> {
+            removeFromCell(previous.cellKey, id);
+            return null;
+        });
+    }
+
+    /**
+     * Partners within the radius that match the filter, nearest first.
+     */
+    public List<NearbyPartner> findWithinRadius(double latitude, double longitude, double radiusKm,
+                                                Predicate<DeliveryPartner> filter) {
+        List<NearbyPartner> result = collect(latitude, longitude, radiusKm, filter);
+        result.sort(Comparator.comparingDouble(NearbyPartner::getDistanceKm));
+        return result;
+    }
+
+    /**
+     * The k partners nearest to the point that match the filter, nearest first, looking no further
+     * than maxRadiusKm. The search starts with a small radius and doubles it until k partners are
+     * found, so dense areas are answered from a handful of cells.
+     */
+    public List<NearbyPartner> findNearest(double latitude, double longitude, int k, double maxRadiusKm,
+                                           Predicate<DeliveryPartner> filter) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+
+        double radiusKm = Math.min(maxRadiusKm, cellSizeKm);
+        while (true) {
+            List<NearbyPartner> found = collect(latitude, longitude, radiusKm, filter);
+            if (found.size() >= k || radiusKm >= maxRadiusKm) {
+                found.sort(Comparator.comparingDouble(NearbyPartner::getDistanceKm));
+                return found.size() > k ? new ArrayList<>(found.subList(0, k)) : found;
+            }
+            radiusKm = Math.min(maxRadiusKm, radiusKm * 2);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private List<NearbyPartner> collect(double latitude, double longitude, double radiusKm,
+                                        Predicate<DeliveryPartner> filter) {
+        List<NearbyPartner> result = new ArrayList<>();
+        double[] box = GeoKernel.boundingBox(latitude, longitude, radiusKm);
+        int minLatCell = latCell(box[0] - EPSILON_DEGREES);
+        int maxLatCell = latCell(box[1] + EPSILON_DEGREES);
+        int minLonCell = lonCell(Math.max(-180.0, box[2] - EPSILON_DEGREES));
+        int maxLonCell = lonCell(Math.min(180.0, box[3] + EPSILON_DEGREES));
+
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                long key = pack(latCell, lonCell);
+                Set<String> cell = cells.get(key);
+                if (cell == null) {
+                    continue;
+                }
+                for (String partnerId : cell) {
+                    Entry entry = entries.get(partnerId);
+                    // Skip partners that are being moved out of this cell right now
+                    if (entry == null || entry.cellKey != key) {
+                        continue;
+                    }
+                    double distanceKm = GeoKernel.haversineKm(latitude, longitude, entry.latitude, entry.longitude);
+                    if (distanceKm <= radiusKm && filter.test(entry.partner)) {
+                        result.add(new NearbyPartner(entry.partner, distanceKm));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isIndexable(DeliveryPartner partner) {
+        Address location = partner.getCurrentLocation();
+        return partner.getAvailabilityStatus() != null
+                && partner.getAvailabilityStatus() != AvailabilityStatus.OFFLINE
+                && Boolean.TRUE.equals(partner.getIsActive())
+                && Boolean.TRUE.equals(partner.getIsVerified())
+                && location != null && location.getLatitude() != null && location.getLongitude() != null;
+    }
+
+    private Entry newEntry(DeliveryPartner partner) {
+        double latitude = partner.getCurrentLocation().getLatitude();
+        double longitude = partner.getCurrentLocation().getLongitude();
+        return new Entry(partner, latitude, longitude, pack(latCell(latitude), lonCell(longitude)));
+    }
+
+    private void removeFromCell(long cellKey, String partnerId) {
+        cells.computeIfPresent(cellKey, (key, members) -> {
+            members.remove(partnerId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private double cellSizeDegrees() {
+        return Math.toDegrees(cellSizeKm / GeoKernel.EARTH_RADIUS_KM);
+    }
+
+    private int latCell(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / cellSizeDegrees());
+    }
+
+    private int lonCell(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / cellSizeDegrees());
+    }
+
+    private static long pack(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+}
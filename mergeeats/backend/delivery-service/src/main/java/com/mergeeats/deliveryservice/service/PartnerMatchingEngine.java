@@ -0,0 +1,153 @@
+package com.mergeeats.deliveryservice.service;
+
+import com.mergeeats.common.geo.EtaModel;
+import com.mergeeats.common.models.DeliveryPartner;
+import com.mergeeats.common.models.DeliveryPartner.AvailabilityStatus;
+import com.mergeeats.common.models.DeliveryPartner.VehicleType;
+import com.mergeeats.deliveryservice.service.PartnerLocationIndex.NearbyPartner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ranks delivery partners for a pickup.
+ *
+ * Candidates are the nearest partners that can take another order, looked up in the
+ * {@link PartnerLocationIndex}. Each one gets a score in [0, 1] from four weighted parts:
+ * - ETA to the pickup, from the straight-line distance, a road detour factor and the vehicle speed
+ * - spare capacity: active orders against maxConcurrentOrders
+ * - rating (out of 5)
+ * - completion rate
+ * Partners without any delivery history are scored with neutral rating and completion values
+ * instead of zero, so new partners still get work.
+ */
+@Component
+public class PartnerMatchingEngine {
+
+    private static final double MAX_RATING = 5.0;
+
+    @Autowired
+    private PartnerLocationIndex partnerLocationIndex;
+
+    @Value("${delivery.matching.candidate-count:20}")
+    private int candidateCount = 20;
+
+    @Value("${delivery.matching.road-factor:1.3}")
+    private double roadFactor = 1.3;
+
+    @Value("${delivery.matching.weight.eta:0.5}")
+    private double etaWeight = 0.5;
+
+    @Value("${delivery.matching.weight.load:0.2}")
+    private double loadWeight = 0.2;
+
+    @Value("${delivery.matching.weight.rating:0.2}")
+    private double ratingWeight = 0.2;
+
+    @Value("${delivery.matching.weight.completion:0.1}")
+    private double completionWeight = 0.1;
+
+    @Value("${delivery.matching.new-partner-rating:4.0}")
+    private double newPartnerRating = 4.0;
+
+    @Value("${delivery.matching.new-partner-completion-rate:90.0}")
+    private double newPartnerCompletionRate = 90.0;
+
+    /**
+     * A scored candidate for a pickup.
+     */
+    public static final class Match {
+
+        private final DeliveryPartner partner;
+        private final double distanceKm;
+        private final double etaMinutes;
+        private final double score;
+
+        Match(DeliveryPartner partner, double distanceKm, double etaMinutes, double score) {
+            this.partner = partner;
+            this.distanceKm = distanceKm;
+            this.etaMinutes = etaMinutes;
+            this.score = score;
+        }
+
+        public DeliveryPartner getPartner() {
+            return partner;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+
+        public double getEtaMinutes() {
+            return etaMinutes;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Candidates for a pickup within maxDistanceKm, best first.
+     */
+    public List<Match> rankCandidates(double pickupLatitude, double pickupLongitude, double maxDistanceKm) {
+        List<NearbyPartner> nearby = partnerLocationIndex.findNearest(pickupLatitude, pickupLongitude,
+                candidateCount, maxDistanceKm, this::canTakeOrder);
+
+        // ETA is normalized against the slowest way of covering the whole search radius
+        double maxEtaMinutes = estimatePickupMinutes(VehicleType.BICYCLE, maxDistanceKm);
+
+        List<Match> matches = new ArrayList<>(nearby.size());
+        for (NearbyPartner candidate : nearby) {
+            DeliveryPartner partner = candidate.getPartner();
+            double etaMinutes = estimatePickupMinutes(partner.getVehicleType(), candidate.getDistanceKm());
+            double score = etaWeight * (1.0 - Math.min(1.0, etaMinutes / maxEtaMinutes))
+                    + loadWeight * spareCapacity(partner)
+                    + ratingWeight * ratingOf(partner) / MAX_RATING
+                    + completionWeight * completionRateOf(partner) / 100.0;
+            matches.add(new Match(partner, candidate.getDistanceKm(), etaMinutes, score));
+        }
+
+        matches.sort(Comparator.comparingDouble(Match::getScore).reversed());
+        return matches;
+    }
+
+    /**
+     * Minutes a partner on the given vehicle needs to cover a straight-line distance by road.
+     */
+    public double estimatePickupMinutes(VehicleType vehicleType, double distanceKm) {
+        return distanceKm * roadFactor / EtaModel.speedKmh(vehicleType) * 60.0;
+    }
+
+    // Same rule as the reservation in DeliveryPartnerService.assignOrder: a busy partner with spare capacity
+    // still qualifies. The index only holds active, verified partners.
+    boolean canTakeOrder(DeliveryPartner partner) {
+        AvailabilityStatus status = partner.getAvailabilityStatus();
+        return (status == AvailabilityStatus.AVAILABLE || status == AvailabilityStatus.BUSY) && partner.canTakeMoreOrders();
+    }
+
+    private double spareCapacity(DeliveryPartner partner) {
+        int maxOrders = partner.getMaxConcurrentOrders() != null ? partner.getMaxConcurrentOrders() : 1;
+        int activeOrders = partner.getActiveOrderIds() != null ? partner.getActiveOrderIds().size() : 0;
+        return maxOrders > 0 ? Math.max(0.0, 1.0 - (double) activeOrders / maxOrders) : 0.0;
+    }
+
+    private double ratingOf(DeliveryPartner partner) {
+        if (!hasHistory(partner) || partner.getRating() == null) {
+            return newPartnerRating;
+        }
+        return partner.getRating();
+    }
+
+    private double completionRateOf(DeliveryPartner partner) {
+        return hasHistory(partner) ? partner.getCompletionRate() : newPartnerCompletionRate;
+    }
+
+    private boolean hasHistory(DeliveryPartner partner) {
+        return partner.getTotalDeliveries() != null && partner.getTotalDeliveries() > 0;
+    }
+}
@@ -0,0 +1,139 @@
+package com.mergeeats.deliveryservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cross-checks {@link MinCostAssignment} against brute force over every matching of small random
+ * matrices: square, wide, tall, and the transpose of each.
+ */
+class MinCostAssignmentTest {
+
+    private static final int MATRICES = 3000;
+    private static final int MAX_SIZE = 6;
+    private static final double TOLERANCE = 1e-6;
+
+    @Test
+    void matchesBruteForceOnRandomMatrices() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < MATRICES; trial++) {
+            int rows = 1 + random.nextInt(MAX_SIZE);
+            int columns = 1 + random.nextInt(MAX_SIZE);
+            // Every third matrix has infeasible pairs
+            double infeasibleShare = trial % 3 == 0 ? 0.3 : 0.0;
+            double[][] cost = randomMatrix(random, rows, columns, infeasibleShare);
+
+            String description = "trial " + trial + " (" + rows + "x" + columns + ")";
+            Outcome expected = bruteForce(cost);
+            assertOptimal(cost, MinCostAssignment.solve(cost), expected, description);
+
+            double[][] transposed = transpose(cost);
+            assertOptimal(transposed, MinCostAssignment.solve(transposed), expected, description + " transposed");
+        }
+    }
+
+    @Test
+    void leavesInfeasibleRowsUnassigned() {
+        double[][] cost = {
+                {1.0, MinCostAssignment.INFEASIBLE},
+                {MinCostAssignment.INFEASIBLE, MinCostAssignment.INFEASIBLE},
+        };
+        assertArrayEquals(new int[]{0, -1}, MinCostAssignment.solve(cost));
+    }
+
+    @Test
+    void handlesEmptyMatrices() {
+        assertEquals(0, MinCostAssignment.solve(new double[0][0]).length);
+        assertArrayEquals(new int[]{-1, -1}, MinCostAssignment.solve(new double[2][0]));
+    }
+
+    private static void assertOptimal(double[][] cost, int[] assignment, Outcome expected, String description) {
+        assertEquals(cost.length, assignment.length, description);
+        boolean[] usedColumns = new boolean[cost.length == 0 ? 0 : cost[0].length];
+        int matched = 0;
+        double total = 0.0;
+        for (int row = 0; row < assignment.length; row++) {
+            int column = assignment[row];
+            if (column < 0) {
+                continue;
+            }
+            assertTrue(!usedColumns[column], description + ": column " + column + " assigned twice");
+            assertNotEquals(MinCostAssignment.INFEASIBLE, cost[row][column], description + ": infeasible pair assigned");
+            usedColumns[column] = true;
+            matched++;
+            total += cost[row][column];
+        }
+        assertEquals(expected.matched, matched, description + ": matched pairs");
+        assertEquals(expected.cost, total, TOLERANCE, description + ": total cost");
+    }
+
+    /**
+     * Best matching over all injective maps from the smaller side into the larger one: as many
+     * feasible pairs as possible, then the lowest total cost.
+     */
+    private static Outcome bruteForce(double[][] cost) {
+        double[][] matrix = cost.length <= cost[0].length ? cost : transpose(cost);
+        Outcome best = new Outcome(-1, Double.POSITIVE_INFINITY);
+        return search(matrix, 0, new boolean[matrix[0].length], 0, 0.0, best);
+    }
+
+    private static Outcome search(double[][] matrix, int row, boolean[] usedColumns, int matched, double total,
+                                  Outcome best) {
+        if (row == matrix.length) {
+            boolean better = matched > best.matched
+                    || (matched == best.matched && total < best.cost - TOLERANCE);
+            return better ? new Outcome(matched, total) : best;
+        }
+        for (int column = 0; column < usedColumns.length; column++) {
+            if (usedColumns[column]) {
+                continue;
+            }
+            usedColumns[column] = true;
+            double pairCost = matrix[row][column];
+            best = pairCost >= MinCostAssignment.INFEASIBLE
+                    ? search(matrix, row + 1, usedColumns, matched, total, best)
+                    : search(matrix, row + 1, usedColumns, matched + 1, total + pairCost, best);
+            usedColumns[column] = false;
+        }
+        return best;
+    }
+
+    private static double[][] randomMatrix(Random random, int rows, int columns, double infeasibleShare) {
+        double[][] cost = new double[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                cost[i][j] = random.nextDouble() < infeasibleShare
+                        ? MinCostAssignment.INFEASIBLE
+                        : Math.round(random.nextDouble() * 600.0) / 10.0;
+            }
+        }
+        return cost;
+    }
+
+    private static double[][] transpose(double[][] matrix) {
+        double[][] transposed = new double[matrix[0].length][matrix.length];
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = 0; j < matrix[0].length; j++) {
+                transposed[j][i] = matrix[i][j];
+            }
+        }
+        return transposed;
+    }
+
+    private static final class Outcome {
+
+        final int matched;
+        final double cost;
+
+        Outcome(int matched, double cost) {
+            this.matched = matched;
+            this.cost = cost;
+        }
+    }
+}
@@ -6,12 +6,14 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {"com.mergeeats.orderservice", "com.mergeeats.common"})
 @EnableMongoAuditing
 @EnableKafka
 @EnableFeignClients
 @EnableAsync
+@EnableScheduling
 public class OrderServiceApplication {
     
     public static void main(String[] args) {
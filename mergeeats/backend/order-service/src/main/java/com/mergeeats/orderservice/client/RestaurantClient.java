@@ -0,0 +1,13 @@
+package com.mergeeats.orderservice.client;
+
+import com.mergeeats.common.models.Restaurant;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+@FeignClient(name = "restaurant-service", url = "${services.restaurant-service.url}")
+public interface RestaurantClient {
+
+    @GetMapping("/api/restaurants/{restaurantId}")
+    Restaurant getRestaurant(@PathVariable("restaurantId") String restaurantId);
+}
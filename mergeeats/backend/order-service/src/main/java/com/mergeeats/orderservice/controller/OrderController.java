@@ -336,11 +336,8 @@ public class OrderController {
             @PathVariable String orderId,
             @RequestBody Map<String, String> estimateData) {
         try {
-            Order order = orderService.getOrderById(orderId);
             LocalDateTime newEstimate = LocalDateTime.parse(estimateData.get("estimatedDeliveryTime"));
-            order.setEstimatedDeliveryTime(newEstimate);
-            
-            // In a real implementation, this would be saved through the service
+            Order order = orderService.updateEstimatedDeliveryTime(orderId, newEstimate);
             return ResponseEntity.ok(order);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -1,7 +1,9 @@
 package com.mergeeats.orderservice.dto;
 
 import com.mergeeats.common.models.OrderItem;
+import com.mergeeats.common.models.Address;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -17,10 +19,15 @@ public class CreateOrderRequest {
     @NotNull(message = "Restaurant ID is required")
     private String restaurantId;
 
-    @Schema(example = "123 Main St, City, State 12345")
+    @Schema(example = "{\"street\":\"123 Main St\",\"city\":\"New York\",\"state\":\"NY\",\"postalCode\":\"10001\",\"country\":\"USA\"}")
     @NotNull(message = "Delivery address is required")
-    @Size(max = 500, message = "Delivery address cannot exceed 500 characters")
-    private String deliveryAddress;
+    @Valid
+    private Address deliveryAddress;
+
+    private boolean isGroupOrder;
+
+    @Size(max = 100, message = "Group order ID cannot exceed 100 characters")
+    private String groupOrderId;
 
     @Schema(example = "Please deliver to the front door")
     @Size(max = 200, message = "Special instructions cannot exceed 200 characters")
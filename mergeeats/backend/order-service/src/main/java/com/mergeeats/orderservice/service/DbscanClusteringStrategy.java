@@ -0,0 +1,101 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Density-based clustering (DBSCAN) with the merge radius as epsilon.
+ * Clusters grow from every order that has at least {@code minPoints} orders (itself included) within
+ * the radius, so the result does not depend on which order happens to come first. Neighbourhoods are
+ * looked up through a spatial grid, which keeps a pass close to O(n log n) for city-scale densities.
+ * Orders that belong to no dense region come back as singleton clusters. Clusters grow through
+ * chains of neighbours and can span several radii; OrderMergingService splits those before merging.
+ */
+@Component
+@ConditionalOnProperty(name = "order.merge.clustering-strategy", havingValue = "dbscan")
+public class DbscanClusteringStrategy implements OrderClusteringStrategy {
+
+    private static final int UNASSIGNED = -1;
+    private static final int QUEUED = -2;
+
+    @Value("${order.merge.dbscan.min-points:2}")
+    private int minPoints = 2;
+
+    @Override
+    public String getName() {
+        return "dbscan";
+    }
+
+    @Override
+    public List<List<Order>> cluster(List<Order> orders, double maxDistanceKm) {
+        IndexedOrders indexed = new IndexedOrders(orders, maxDistanceKm);
+        int[] labels = new int[orders.size()];
+        Arrays.fill(labels, UNASSIGNED);
+
+        List<List<Order>> clusters = new ArrayList<>();
+        Deque<Integer> frontier = new ArrayDeque<>();
+
+        for (int i = 0; i < orders.size(); i++) {
+            if (labels[i] != UNASSIGNED) {
+                continue;
+            }
+
+            List<Integer> neighbours = indexed.neighbours(i);
+            if (neighbours.size() < minPoints) {
+                // Noise for now; it may still be reached later as the border of a cluster
+                continue;
+            }
+
+            int clusterId = clusters.size();
+            List<Order> cluster = new ArrayList<>();
+            clusters.add(cluster);
+
+            labels[i] = clusterId;
+            cluster.add(orders.get(i));
+            enqueueUnassigned(neighbours, labels, frontier);
+
+            while (!frontier.isEmpty()) {
+                int j = frontier.poll();
+                labels[j] = clusterId;
+                cluster.add(orders.get(j));
+
+                // Only core orders extend the cluster; border orders join it but stop there
+                List<Integer> reachable = indexed.neighbours(j);
+                if (reachable.size() >= minPoints) {
+                    enqueueUnassigned(reachable, labels, frontier);
+                }
+            }
+        }
+
+        for (int i = 0; i < orders.size(); i++) {
+            if (labels[i] == UNASSIGNED) {
+                List<Order> singleton = new ArrayList<>(1);
+                singleton.add(orders.get(i));
+                clusters.add(singleton);
+            }
+        }
+
+        return clusters;
+    }
+
+    /**
+     * Queues every neighbour that is not yet part of a cluster, marking it so that dense regions do
+     * not queue the same order once per core neighbour.
+     */
+    private void enqueueUnassigned(List<Integer> neighbours, int[] labels, Deque<Integer> frontier) {
+        for (int j : neighbours) {
+            if (labels[j] == UNASSIGNED) {
+                labels[j] = QUEUED;
+                frontier.add(j);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.geo.GeoKernel;
+import com.mergeeats.common.geo.GeoPoints;
+import com.mergeeats.common.geo.SpatialGridIndex;
+import com.mergeeats.common.models.Address;
+import com.mergeeats.common.models.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delivery locations of a list of orders, unboxed once and bucketed into a spatial grid so that
+ * clustering strategies can look up the orders within the merge radius of any order by index.
+ */
+final class IndexedOrders {
+
+    private final List<Order> orders;
+    private final double radiusKm;
+    private final double radiusChordSquared;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final GeoPoints points;
+    private final SpatialGridIndex<Integer> index;
+
+    IndexedOrders(List<Order> orders, double radiusKm) {
+        this.orders = orders;
+        this.radiusKm = radiusKm;
+        this.radiusChordSquared = GeoKernel.chordSquaredForKm(radiusKm);
+        this.latitudes = new double[orders.size()];
+        this.longitudes = new double[orders.size()];
+        this.index = new SpatialGridIndex<>(radiusKm);
+
+        // Orders without coordinates get NaN and are never indexed
+        for (int i = 0; i < orders.size(); i++) {
+            Address address = orders.get(i).getDeliveryAddress();
+            if (address != null && address.getLatitude() != null && address.getLongitude() != null) {
+                latitudes[i] = address.getLatitude();
+                longitudes[i] = address.getLongitude();
+                index.insert(i, latitudes[i], longitudes[i]);
+            } else {
+                latitudes[i] = Double.NaN;
+                longitudes[i] = Double.NaN;
+            }
+        }
+        this.points = GeoPoints.of(latitudes, longitudes);
+    }
+
+    int size() {
+        return orders.size();
+    }
+
+    Order get(int i) {
+        return orders.get(i);
+    }
+
+    boolean hasLocation(int i) {
+        return !Double.isNaN(latitudes[i]);
+    }
+
+    /**
+     * Indices of every order within the radius of order i, including i itself, in no particular order.
+     */
+    List<Integer> neighbours(int i) {
+        if (!hasLocation(i)) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> candidates = index.query(latitudes[i], longitudes[i], radiusKm);
+        List<Integer> neighbours = new ArrayList<>(candidates.size());
+        for (int j : candidates) {
+            if (points.chordSquared(i, j) <= radiusChordSquared) {
+                neighbours.add(j);
+            }
+        }
+        return neighbours;
+    }
+}
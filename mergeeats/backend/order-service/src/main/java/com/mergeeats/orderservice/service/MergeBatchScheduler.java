@@ -0,0 +1,84 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects new orders into per-restaurant micro-batches and merges them on a fixed tick.
+ * A merge pass sees every open order of a restaurant at once, so two orders created at almost the
+ * same moment end up in the same clustering pass instead of racing each other in separate async
+ * merge attempts.
+ */
+@Component
+public class MergeBatchScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MergeBatchScheduler.class);
+
+    @Autowired
+    private OpenOrderPool openOrderPool;
+
+    @Autowired
+    private OrderMergingService orderMergingService;
+
+    private final Set<String> pendingRestaurantIds = ConcurrentHashMap.newKeySet();
+
+    public void submit(Order order) {
+        if (order.getRestaurantId() != null) {
+            pendingRestaurantIds.add(order.getRestaurantId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.merge.batch-interval-ms:15000}")
+    public void runMergePass() {
+        if (pendingRestaurantIds.isEmpty()) {
+            return;
+        }
+
+        // Drain the restaurants touched since the last tick; orders arriving meanwhile go to the next one
+        Map<String, List<Order>> candidatesByRestaurant = new LinkedHashMap<>();
+        for (String restaurantId : new ArrayList<>(pendingRestaurantIds)) {
+            pendingRestaurantIds.remove(restaurantId);
+            List<Order> candidates = openOrderPool.getCandidates(restaurantId);
+            if (candidates.size() > 1) {
+                candidatesByRestaurant.put(restaurantId, candidates);
+            }
+        }
+
+        if (candidatesByRestaurant.isEmpty()) {
+            return;
+        }
+
+        try {
+            MergeResult result = orderMergingService.mergeOrderBatch(candidatesByRestaurant.values());
+            result.getMergedOrders().forEach(openOrderPool::onOrderStatusChanged);
+
+            logger.debug("Merge pass over {} restaurants merged {} orders",
+                    candidatesByRestaurant.size(), result.getUpdatedOrderIds().size());
+
+            if (result.hasFailures()) {
+                // Failed orders are still unmerged in the pool; retry their restaurants on the next tick
+                logger.warn("Merge pass failed to update orders {}", result.getFailedOrderIds());
+                candidatesByRestaurant.forEach((restaurantId, candidates) -> {
+                    if (candidates.stream().anyMatch(order -> result.getFailedOrderIds().contains(order.getOrderId()))) {
+                        pendingRestaurantIds.add(restaurantId);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            // Log error but keep the schedule running; the orders stay in the pool for the next tick
+            logger.error("Error in batch order merging: {}", e.getMessage(), e);
+            pendingRestaurantIds.addAll(candidatesByRestaurant.keySet());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Order;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of one merge pass: the orders whose merge fields were written, and the ids of the orders
+ * whose write failed. Failed orders are left unmerged in memory so a later pass can pick them up.
+ */
+public class MergeResult {
+
+    private final List<Order> mergedOrders = new ArrayList<>();
+    private final List<String> updatedOrderIds = new ArrayList<>();
+    private final List<String> failedOrderIds = new ArrayList<>();
+
+    public static MergeResult empty() {
+        return new MergeResult();
+    }
+
+    void addUpdated(Order order) {
+        mergedOrders.add(order);
+        updatedOrderIds.add(order.getOrderId());
+    }
+
+    void addFailed(Order order) {
+        failedOrderIds.add(order.getOrderId());
+    }
+
+    public List<Order> getMergedOrders() {
+        return Collections.unmodifiableList(mergedOrders);
+    }
+
+    public List<String> getUpdatedOrderIds() {
+        return Collections.unmodifiableList(updatedOrderIds);
+    }
+
+    public List<String> getFailedOrderIds() {
+        return Collections.unmodifiableList(failedOrderIds);
+    }
+
+    public boolean hasFailures() {
+        return !failedOrderIds.isEmpty();
+    }
+}
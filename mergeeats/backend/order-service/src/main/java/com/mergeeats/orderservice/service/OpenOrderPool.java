@@ -0,0 +1,116 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.enums.OrderStatus;
+import com.mergeeats.common.models.Order;
+import com.mergeeats.orderservice.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live pool of orders that can still be merged, kept per restaurant.
+ * The pool is fed by order creation and status changes in {@link OrderService}, so merge candidates
+ * are read from memory instead of re-querying Mongo for every new order. Mongo is only read once at
+ * startup to rebuild the pool.
+ */
+@Component
+public class OpenOrderPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenOrderPool.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${order.merge.time-window-minutes:15}")
+    private int mergeTimeWindowMinutes;
+
+    private final Map<String, Map<String, Order>> ordersByRestaurant = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ordersByRestaurant.clear();
+
+        LocalDateTime timeThreshold = LocalDateTime.now().minusMinutes(mergeTimeWindowMinutes);
+        List<Order> eligibleOrders = orderRepository.findOrdersEligibleForMerging(timeThreshold);
+        eligibleOrders.forEach(this::track);
+
+        logger.info("Open order pool rebuilt with {} mergeable orders", size());
+    }
+
+    public void onOrderCreated(Order order) {
+        track(order);
+    }
+
+    public void onOrderStatusChanged(Order order) {
+        track(order);
+    }
+
+    /**
+     * Returns the mergeable orders of a restaurant. Orders that have left the merge window or have
+     * been merged since they were added are evicted on the way.
+     */
+    public List<Order> getCandidates(String restaurantId) {
+        Map<String, Order> orders = ordersByRestaurant.get(restaurantId);
+        if (orders == null) {
+            return new ArrayList<>();
+        }
+
+        LocalDateTime timeThreshold = LocalDateTime.now().minusMinutes(mergeTimeWindowMinutes);
+        List<Order> candidates = new ArrayList<>(orders.size());
+        Iterator<Order> iterator = orders.values().iterator();
+        while (iterator.hasNext()) {
+            Order order = iterator.next();
+            if (isMergeable(order, timeThreshold)) {
+                candidates.add(order);
+            } else {
+                iterator.remove();
+            }
+        }
+
+        return candidates;
+    }
+
+    public int size() {
+        return ordersByRestaurant.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void track(Order order) {
+        if (order.getOrderId() == null || order.getRestaurantId() == null) {
+            return;
+        }
+
+        LocalDateTime timeThreshold = LocalDateTime.now().minusMinutes(mergeTimeWindowMinutes);
+        if (isMergeable(order, timeThreshold)) {
+            ordersByRestaurant.computeIfAbsent(order.getRestaurantId(), id -> new ConcurrentHashMap<>())
+                    .put(order.getOrderId(), order);
+        } else {
+            Map<String, Order> orders = ordersByRestaurant.get(order.getRestaurantId());
+            if (orders != null) {
+                orders.remove(order.getOrderId());
+            }
+        }
+    }
+
+    /**
+     * Same eligibility as OrderRepository.findOrdersEligibleForMerging, minus orders that already
+     * belong to a merge.
+     */
+    private boolean isMergeable(Order order, LocalDateTime timeThreshold) {
+        OrderStatus status = order.getStatus();
+        return (status == OrderStatus.PENDING || status == OrderStatus.CONFIRMED)
+                && !order.isMerged()
+                && order.getOrderTime() != null
+                && !order.getOrderTime().isBefore(timeThreshold);
+    }
+}
@@ -0,0 +1,17 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Order;
+
+import java.util.List;
+
+/**
+ * Groups merge candidates into clusters of orders that could share one delivery run.
+ * Every order ends up in exactly one cluster; orders that cannot be merged form singleton clusters.
+ * The implementation is picked with {@code order.merge.clustering-strategy}.
+ */
+public interface OrderClusteringStrategy {
+
+    String getName();
+
+    List<List<Order>> cluster(List<Order> orders, double maxDistanceKm);
+}
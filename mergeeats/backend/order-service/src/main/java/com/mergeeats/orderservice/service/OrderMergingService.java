@@ -1,13 +1,27 @@
 package com.mergeeats.orderservice.service;
 
+import com.mergeeats.common.enums.OrderStatus;
+import com.mergeeats.common.events.OrdersMergedEvent;
 import com.mergeeats.common.models.Order;
+import com.mergeeats.common.models.OutboxEvent;
 import com.mergeeats.common.models.Address;
-import com.mergeeats.orderservice.repository.OrderRepository;
+import com.mergeeats.common.geo.EtaModel;
+import com.mergeeats.common.geo.GeoKernel;
+import com.mergeeats.common.geo.RouteOptimizer;
+import com.mergeeats.common.models.DeliveryPartner.VehicleType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -15,11 +29,19 @@ import java.util.stream.Collectors;
 @Service
 public class OrderMergingService {
     
+    private static final Logger logger = LoggerFactory.getLogger(OrderMergingService.class);
+    
+    // Orders a merge may still be written to
+    private static final List<OrderStatus> MERGEABLE_STATUSES = List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
     @Autowired
-    private OrderRepository orderRepository;
+    private RestaurantDirectory restaurantDirectory;
     
     @Autowired
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OrderClusteringStrategy clusteringStrategy;
     
     @Value("${order.merge.max-distance-km:2.0}")
     private double maxDistanceKm;
@@ -27,6 +49,24 @@ public class OrderMergingService {
     @Value("${order.merge.max-orders-per-merge:5}")
     private int maxOrdersPerMerge;
     
+    @Value("${order.merge.route-time-budget-ms:20}")
+    private long routeTimeBudgetMs;
+    
+    @Value("${order.eta.default-preparation-minutes:20}")
+    private int defaultPreparationMinutes = 20;
+    
+    @Value("${order.eta.vehicle-type:MOTORCYCLE}")
+    private VehicleType etaVehicleType = VehicleType.MOTORCYCLE;
+    
+    @Value("${order.eta.fallback-leg-km:2.0}")
+    private double fallbackLegKm = 2.0;
+    
+    @Value("${order.eta.road-factor:1.3}")
+    private double etaRoadFactor = 1.3;
+    
+    @Value("${order.eta.handoff-minutes:3.0}")
+    private double etaHandoffMinutes = 3.0;
+    
     /**
      * AI-powered order merging algorithm
      * Considers factors like location proximity, delivery time windows, and restaurant preparation time
@@ -36,44 +76,252 @@ public class OrderMergingService {
             return candidateOrders;
         }
         
-        // Step 1: Group orders by optimal clusters based on delivery addresses
-        List<List<Order>> clusters = clusterOrdersByLocation(candidateOrders);
+        List<Order> mergedOrders = mergeOrderBatch(List.of(candidateOrders)).getMergedOrders();
+        return mergedOrders.isEmpty() ? candidateOrders : mergedOrders;
+    }
+    
+    /**
+     * Run one merge pass over several independent candidate groups (typically one per restaurant).
+     * Every group is clustered on its own, and the merge decisions of the whole pass are persisted
+     * with a single unordered bulk update.
+     */
+    public MergeResult mergeOrderBatch(Collection<List<Order>> candidateGroups) {
+        Map<String, List<Order>> mergedClusters = planMerges(candidateGroups);
+        
+        if (mergedClusters.isEmpty()) {
+            return MergeResult.empty();
+        }
         
-        List<Order> mergedOrders = new ArrayList<>();
+        return persistMerges(mergedClusters);
+    }
+    
+    /**
+     * Decide the merges of one pass without persisting them: cluster each group, split clusters that
+     * are too large or too spread out, score them and apply the merge fields to the orders of every accepted cluster.
+     * Returns the accepted clusters keyed by their new merged order id.
+     */
+    Map<String, List<Order>> planMerges(Collection<List<Order>> candidateGroups) {
+        Map<String, List<Order>> mergedClusters = new LinkedHashMap<>();
         
-        for (List<Order> cluster : clusters) {
-            if (cluster.size() > 1 && cluster.size() <= maxOrdersPerMerge) {
-                // Step 2: Calculate merge efficiency score
-                double efficiency = calculateMergeEfficiency(cluster);
-                
-                // Step 3: Only merge if efficiency threshold is met
-                if (efficiency > 0.7) { // 70% efficiency threshold
-                    String mergedOrderId = UUID.randomUUID().toString();
+        for (List<Order> candidateOrders : candidateGroups) {
+            if (candidateOrders.size() < 2) {
+                continue;
+            }
+            
+            // Step 1: Group orders by optimal clusters based on delivery addresses
+            List<List<Order>> clusters = new ArrayList<>();
+            for (List<Order> cluster : clusterOrdersByLocation(candidateOrders)) {
+                splitOversizedCluster(cluster, clusters);
+            }
+            
+            for (List<Order> cluster : clusters) {
+                if (cluster.size() > 1) {
+                    // Step 2: Calculate merge efficiency score
+                    double efficiency = calculateMergeEfficiency(cluster);
                     
-                    // Update orders with merge information
-                    for (Order order : cluster) {
-                        order.setMerged(true);
-                        order.setMergedOrderId(mergedOrderId);
-                        order.setMergedWithOrderIds(
-                            cluster.stream()
-                                .map(Order::getOrderId)
-                                .filter(id -> !id.equals(order.getOrderId()))
-                                .collect(Collectors.toList())
-                        );
-                        
-                        // Calculate estimated delivery time based on merged route
-                        order.setEstimatedDeliveryTime(calculateMergedDeliveryTime(cluster));
-                        
-                        mergedOrders.add(orderRepository.save(order));
+                    // Step 3: Only merge if efficiency threshold is met
+                    if (efficiency > 0.7) { // 70% efficiency threshold
+                        String mergedOrderId = UUID.randomUUID().toString();
+                        applyMerge(mergedOrderId, cluster);
+                        mergedClusters.put(mergedOrderId, cluster);
                     }
-                    
-                    // Publish merge event
-                    publishMergeEvent(mergedOrderId, cluster);
                 }
             }
         }
         
-        return mergedOrders.isEmpty() ? candidateOrders : mergedOrders;
+        return mergedClusters;
+    }
+    
+    /**
+     * Set the merge fields of every order in an accepted cluster. The cluster's order ids are
+     * collected once and each order gets a copy without its own id.
+     */
+    private void applyMerge(String mergedOrderId, List<Order> cluster) {
+        List<String> clusterOrderIds = new ArrayList<>(cluster.size());
+        for (Order order : cluster) {
+            clusterOrderIds.add(order.getOrderId());
+        }
+        
+        // Each order is delivered when the merged route reaches its stop
+        LocalDateTime[] estimatedDeliveryTimes = estimateMergedDeliveryTimes(cluster);
+        
+        for (int i = 0; i < cluster.size(); i++) {
+            List<String> mergedWithOrderIds = new ArrayList<>(cluster.size() - 1);
+            mergedWithOrderIds.addAll(clusterOrderIds.subList(0, i));
+            mergedWithOrderIds.addAll(clusterOrderIds.subList(i + 1, clusterOrderIds.size()));
+            
+            Order order = cluster.get(i);
+            order.setMerged(true);
+            order.setMergedOrderId(mergedOrderId);
+            order.setMergedWithOrderIds(mergedWithOrderIds);
+            order.setEstimatedDeliveryTime(estimatedDeliveryTimes[i]);
+        }
+    }
+    
+    /**
+     * Write the merge fields of all merged orders with one unordered bulk update. Only the merge
+     * fields are touched, so concurrent changes to other order fields are not overwritten, and only
+     * orders that are still open and unmerged are updated.
+     *
+     * MongoDB runs standalone, so a cluster cannot be written in one transaction. Instead the
+     * written merge ids are read back after the bulk, and a cluster that landed only partly is
+     * rolled back so no order points at siblings that were never merged. Only then does each fully
+     * written cluster get its ORDERS_MERGED event, in the outbox of its first order; a cluster whose
+     * event cannot be stored is rolled back too, so a merge is persisted exactly when it is announced.
+     */
+    private MergeResult persistMerges(Map<String, List<Order>> mergedClusters) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        LocalDateTime now = LocalDateTime.now();
+        
+        for (Map.Entry<String, List<Order>> entry : mergedClusters.entrySet()) {
+            List<Order> cluster = entry.getValue();
+            for (Order order : cluster) {
+                Update update = new Update()
+                    .set("isMerged", true)
+                    .set("mergedOrderId", order.getMergedOrderId())
+                    .set("mergedWithOrderIds", order.getMergedWithOrderIds())
+                    .set("estimatedDeliveryTime", order.getEstimatedDeliveryTime())
+                    .set("updatedAt", now);
+                // Orders cancelled or merged since the pool snapshot match nothing and fail their cluster
+                Query query = Query.query(Criteria.where("_id").is(order.getOrderId())
+                    .and("isMerged").is(false)
+                    .and("status").in(MERGEABLE_STATUSES));
+                bulkOperations.updateOne(query, update);
+            }
+        }
+        
+        try {
+            bulkOperations.execute();
+        } catch (RuntimeException e) {
+            // Some writes may still have landed, even on a timeout; the read-back below decides
+            logger.warn("Merge bulk update failed: {}", e.getMessage());
+        }
+        
+        Set<String> committed = findCommittedClusters(mergedClusters);
+        committed.removeAll(announceMerges(mergedClusters, committed));
+        
+        MergeResult result = new MergeResult();
+        for (Map.Entry<String, List<Order>> entry : mergedClusters.entrySet()) {
+            boolean clusterCommitted = committed.contains(entry.getKey());
+            for (Order order : entry.getValue()) {
+                if (clusterCommitted) {
+                    order.setUpdatedAt(now);
+                    result.addUpdated(order);
+                } else {
+                    order.setMerged(false);
+                    order.setMergedOrderId(null);
+                    order.setMergedWithOrderIds(null);
+                    result.addFailed(order);
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Read back which clusters have every order written with their merge id, and roll back the
+     * orders of the other clusters. When the read-back itself fails every cluster is rolled back.
+     */
+    private Set<String> findCommittedClusters(Map<String, List<Order>> mergedClusters) {
+        Map<String, Integer> writtenCounts = new HashMap<>();
+        try {
+            Query query = Query.query(Criteria.where("mergedOrderId").in(mergedClusters.keySet()));
+            query.fields().include("mergedOrderId");
+            for (Order order : mongoTemplate.find(query, Order.class)) {
+                writtenCounts.merge(order.getMergedOrderId(), 1, Integer::sum);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not read back merge results, rolling back the whole pass: {}", e.getMessage());
+            writtenCounts.clear();
+        }
+        
+        Set<String> committed = new HashSet<>();
+        List<String> partial = new ArrayList<>();
+        for (Map.Entry<String, List<Order>> entry : mergedClusters.entrySet()) {
+            int written = writtenCounts.getOrDefault(entry.getKey(), 0);
+            if (written == entry.getValue().size()) {
+                committed.add(entry.getKey());
+            } else {
+                partial.add(entry.getKey());
+            }
+        }
+        
+        if (!partial.isEmpty()) {
+            rollBackMerges(partial);
+        }
+        return committed;
+    }
+    
+    /**
+     * Store the ORDERS_MERGED event of every committed cluster in the outbox of its first order, and
+     * roll back the clusters whose event could not be stored. Returns the rolled back merged order
+     * ids. The push skips an order that already holds the event, so it is retried once when the
+     * outcome of the bulk is unknown; the relay delivers at least once either way.
+     */
+    private Set<String> announceMerges(Map<String, List<Order>> mergedClusters, Set<String> committed) {
+        if (committed.isEmpty()) {
+            return Set.of();
+        }
+        
+        List<String> mergedOrderIds = new ArrayList<>(committed);
+        List<OutboxEvent> events = new ArrayList<>(mergedOrderIds.size());
+        for (String mergedOrderId : mergedOrderIds) {
+            events.add(buildMergeEvent(mergedOrderId, mergedClusters.get(mergedOrderId)));
+        }
+        
+        Set<String> failed = new HashSet<>();
+        try {
+            pushMergeEvents(mergedClusters, mergedOrderIds, events);
+        } catch (BulkOperationException e) {
+            // The errors carry the index of the failed push, one push per cluster
+            e.getErrors().forEach(error -> failed.add(mergedOrderIds.get(error.getIndex())));
+            logger.warn("Could not store merge events for {} merges: {}", failed.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            try {
+                pushMergeEvents(mergedClusters, mergedOrderIds, events);
+            } catch (RuntimeException retryFailure) {
+                logger.error("Could not store merge events, rolling back {} merges: {}",
+                    mergedOrderIds.size(), retryFailure.getMessage());
+                failed.addAll(mergedOrderIds);
+            }
+        }
+        
+        if (!failed.isEmpty()) {
+            rollBackMerges(new ArrayList<>(failed));
+        }
+        return failed;
+    }
+    
+    private void pushMergeEvents(Map<String, List<Order>> mergedClusters, List<String> mergedOrderIds,
+                                 List<OutboxEvent> events) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        for (int i = 0; i < mergedOrderIds.size(); i++) {
+            String mergedOrderId = mergedOrderIds.get(i);
+            OutboxEvent event = events.get(i);
+            Query query = Query.query(Criteria.where("_id").is(mergedClusters.get(mergedOrderId).get(0).getOrderId())
+                .and("mergedOrderId").is(mergedOrderId)
+                .and("pendingEvents.eventId").ne(event.getEventId()));
+            bulkOperations.updateOne(query, new Update().push("pendingEvents", event));
+        }
+        bulkOperations.execute();
+    }
+    
+    /**
+     * Clear the merge fields written for the given merged order ids. The merged order id is only
+     * ever written by this pass, so no other order is touched.
+     */
+    private void rollBackMerges(List<String> mergedOrderIds) {
+        try {
+            Update update = new Update()
+                .set("isMerged", false)
+                .unset("mergedOrderId")
+                .unset("mergedWithOrderIds");
+            long rolledBack = mongoTemplate.updateMulti(Query.query(Criteria.where("mergedOrderId").in(mergedOrderIds)),
+                update, Order.class).getModifiedCount();
+            logger.warn("Rolled back {} orders of {} partly written merges", rolledBack, mergedOrderIds.size());
+        } catch (RuntimeException e) {
+            logger.error("Could not roll back partly written merges {}: {}", mergedOrderIds, e.getMessage());
+        }
     }
     
     /**
@@ -84,37 +332,63 @@ public class OrderMergingService {
             return false;
         }
         
-        double distance = calculateDistance(order1.getDeliveryAddress(), order2.getDeliveryAddress());
-        return distance <= maxDistanceKm;
+        Address addr1 = order1.getDeliveryAddress();
+        Address addr2 = order2.getDeliveryAddress();
+        if (!hasCoordinates(addr1) || !hasCoordinates(addr2)) {
+            return false;
+        }
+        
+        return GeoKernel.isWithinKm(addr1.getLatitude(), addr1.getLongitude(),
+            addr2.getLatitude(), addr2.getLongitude(), maxDistanceKm);
     }
     
     /**
-     * Cluster orders by location using a simple distance-based algorithm
-     * In a production system, this could use more sophisticated ML clustering algorithms
+     * Cluster orders by location with the configured clustering strategy.
      */
-    private List<List<Order>> clusterOrdersByLocation(List<Order> orders) {
-        List<List<Order>> clusters = new ArrayList<>();
-        List<Order> unprocessed = new ArrayList<>(orders);
-        
-        while (!unprocessed.isEmpty()) {
-            Order seed = unprocessed.remove(0);
-            List<Order> cluster = new ArrayList<>();
-            cluster.add(seed);
-            
-            // Find all orders within radius of the seed order
-            Iterator<Order> iterator = unprocessed.iterator();
-            while (iterator.hasNext()) {
-                Order candidate = iterator.next();
-                if (isWithinDeliveryRadius(seed, candidate)) {
-                    cluster.add(candidate);
-                    iterator.remove();
-                }
-            }
-            
-            clusters.add(cluster);
+    List<List<Order>> clusterOrdersByLocation(List<Order> orders) {
+        return clusteringStrategy.cluster(orders, maxDistanceKm);
+    }
+    
+    /**
+     * Split a cluster larger than max-orders-per-merge, or with an order farther than the merge
+     * radius from its centroid, by repeatedly halving it at the median of its wider coordinate span.
+     * Density-based strategies chain orders that are each within the radius of the next, so without
+     * the second check a cluster could stretch across several radii.
+     */
+    void splitOversizedCluster(List<Order> cluster, List<List<Order>> result) {
+        DoubleSummaryStatistics latitudes = cluster.stream()
+            .mapToDouble(order -> order.getDeliveryAddress().getLatitude())
+            .summaryStatistics();
+        DoubleSummaryStatistics longitudes = cluster.stream()
+            .mapToDouble(order -> order.getDeliveryAddress().getLongitude())
+            .summaryStatistics();
+        
+        if (cluster.size() <= maxOrdersPerMerge && withinRadiusOfCentroid(cluster, latitudes.getAverage(), longitudes.getAverage())) {
+            result.add(cluster);
+            return;
         }
         
-        return clusters;
+        // Compare spans in kilometres: a degree of longitude shrinks with latitude
+        double latitudeSpan = latitudes.getMax() - latitudes.getMin();
+        double longitudeSpan = (longitudes.getMax() - longitudes.getMin()) * Math.cos(Math.toRadians(latitudes.getAverage()));
+        Comparator<Order> axis = latitudeSpan >= longitudeSpan
+            ? Comparator.comparingDouble(order -> order.getDeliveryAddress().getLatitude())
+            : Comparator.comparingDouble(order -> order.getDeliveryAddress().getLongitude());
+        
+        List<Order> sorted = new ArrayList<>(cluster);
+        sorted.sort(axis);
+        int middle = sorted.size() / 2;
+        splitOversizedCluster(new ArrayList<>(sorted.subList(0, middle)), result);
+        splitOversizedCluster(new ArrayList<>(sorted.subList(middle, sorted.size())), result);
+    }
+    
+    private boolean withinRadiusOfCentroid(List<Order> cluster, double centroidLatitude, double centroidLongitude) {
+        return cluster.stream().allMatch(order -> GeoKernel.isWithinKm(centroidLatitude, centroidLongitude,
+            order.getDeliveryAddress().getLatitude(), order.getDeliveryAddress().getLongitude(), maxDistanceKm));
+    }
+    
+    private boolean hasCoordinates(Address address) {
+        return address != null && address.getLatitude() != null && address.getLongitude() != null;
     }
     
     /**
@@ -123,7 +397,7 @@ public class OrderMergingService {
      * - Time window compatibility
      * - Restaurant preparation time alignment
      */
-    private double calculateMergeEfficiency(List<Order> orders) {
+    double calculateMergeEfficiency(List<Order> orders) {
         if (orders.size() < 2) return 0.0;
         
         // Factor 1: Distance efficiency (0-1 score)
@@ -181,73 +455,135 @@ public class OrderMergingService {
         return restaurants.size() == 1 ? 1.0 : 0.5; // Same restaurant = perfect alignment
     }
     
-    private double calculateOptimizedRouteDistance(List<Order> orders) {
-        // Simplified TSP-like calculation
-        // In production, this would use proper route optimization algorithms
+    double calculateOptimizedRouteDistance(List<Order> orders) {
         if (orders.size() < 2) return 0.0;
         
-        double totalDistance = 0.0;
-        for (int i = 0; i < orders.size() - 1; i++) {
-            totalDistance += calculateDistance(
-                orders.get(i).getDeliveryAddress(),
-                orders.get(i + 1).getDeliveryAddress()
-            );
+        int stops = orders.size();
+        double[] latitudes = new double[stops];
+        double[] longitudes = new double[stops];
+        for (int i = 0; i < stops; i++) {
+            Address address = orders.get(i).getDeliveryAddress();
+            if (!hasCoordinates(address)) {
+                return Double.MAX_VALUE; // Cannot plan a route
+            }
+            latitudes[i] = address.getLatitude();
+            longitudes[i] = address.getLongitude();
         }
         
-        return totalDistance + 2.0; // Add base distance from restaurant
-    }
-    
-    private LocalDateTime calculateMergedDeliveryTime(List<Order> orders) {
-        // Calculate estimated delivery time for merged orders
-        LocalDateTime baseTime = LocalDateTime.now().plusMinutes(30); // Base preparation time
+        RouteOptimizer routeOptimizer = new RouteOptimizer(routeTimeBudgetMs);
+        
+        Address pickup = restaurantDirectory.getPickupAddress(orders.get(0).getRestaurantId());
+        if (hasCoordinates(pickup)) {
+            return routeOptimizer.optimize(pickup.getLatitude(), pickup.getLongitude(), latitudes, longitudes)
+                .getDistanceKm();
+        }
         
-        // Add time based on number of stops
-        int additionalMinutes = (orders.size() - 1) * 8; // 8 minutes per additional stop
+        // Pickup location unknown: take the shortest open path through the drop-offs from any
+        // starting drop-off and add the base distance from the restaurant
+        double bestDistance = Double.MAX_VALUE;
+        for (int start = 0; start < stops; start++) {
+            double[] otherLatitudes = withoutIndex(latitudes, start);
+            double[] otherLongitudes = withoutIndex(longitudes, start);
+            double distance = routeOptimizer.optimize(latitudes[start], longitudes[start], otherLatitudes, otherLongitudes)
+                .getDistanceKm();
+            bestDistance = Math.min(bestDistance, distance);
+        }
         
-        return baseTime.plusMinutes(additionalMinutes);
+        return bestDistance + 2.0; // Add base distance from restaurant
+    }
+    
+    private static double[] withoutIndex(double[] values, int index) {
+        double[] result = new double[values.length - 1];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        return result;
     }
     
     /**
-     * Calculate distance between two addresses using Haversine formula
+     * Estimate the delivery time of every order of a merged cluster, index-aligned with the cluster.
+     * The food is ready once the restaurant's average preparation time has passed since the latest
+     * order of the cluster; the partner then drives the optimized route from the restaurant, and each
+     * order is delivered when its stop is reached.
      */
-    private double calculateDistance(Address addr1, Address addr2) {
-        if (addr1.getLatitude() == null || addr1.getLongitude() == null ||
-            addr2.getLatitude() == null || addr2.getLongitude() == null) {
-            return Double.MAX_VALUE; // Cannot calculate distance
+    LocalDateTime[] estimateMergedDeliveryTimes(List<Order> orders) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer preparationTime = restaurantDirectory.getAveragePreparationTime(orders.get(0).getRestaurantId());
+        int preparationMinutes = preparationTime != null ? preparationTime : defaultPreparationMinutes;
+        
+        LocalDateTime readyAt = now;
+        for (Order order : orders) {
+            LocalDateTime orderedAt = order.getCreatedAt() != null ? order.getCreatedAt() : now;
+            LocalDateTime orderReadyAt = orderedAt.plusMinutes(preparationMinutes);
+            if (orderReadyAt.isAfter(readyAt)) {
+                readyAt = orderReadyAt;
+            }
         }
+        double readyInMinutes = java.time.Duration.between(now, readyAt).toSeconds() / 60.0;
         
-        double lat1 = Math.toRadians(addr1.getLatitude());
-        double lon1 = Math.toRadians(addr1.getLongitude());
-        double lat2 = Math.toRadians(addr2.getLatitude());
-        double lon2 = Math.toRadians(addr2.getLongitude());
+        double[] routeKmToStop = new double[orders.size()];
+        int[] stopsBefore = new int[orders.size()];
+        if (!planStops(orders, routeKmToStop, stopsBefore)) {
+            // No coordinates to plan with: every order gets the time of the last stop
+            Arrays.fill(routeKmToStop, orders.size() * fallbackLegKm);
+            Arrays.fill(stopsBefore, orders.size() - 1);
+        }
         
-        double dlat = lat2 - lat1;
-        double dlon = lon2 - lon1;
+        EtaModel etaModel = new EtaModel(etaRoadFactor, etaHandoffMinutes);
+        LocalDateTime[] estimates = new LocalDateTime[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            double minutes = etaModel.minutesToDropoffViaPickup(etaVehicleType, 0.0, readyInMinutes,
+                routeKmToStop[i], stopsBefore[i]);
+            estimates[i] = now.plusSeconds(Math.round(minutes * 60.0));
+        }
+        return estimates;
+    }
+    
+    /**
+     * Fill in, index-aligned with the orders, the route distance from the restaurant to each order's
+     * stop along the optimized route and the number of stops before it. Returns false when the
+     * restaurant or a drop-off has no coordinates.
+     */
+    private boolean planStops(List<Order> orders, double[] routeKmToStop, int[] stopsBefore) {
+        Address pickup = restaurantDirectory.getPickupAddress(orders.get(0).getRestaurantId());
+        if (!hasCoordinates(pickup)) {
+            return false;
+        }
         
-        double a = Math.sin(dlat / 2) * Math.sin(dlat / 2) +
-                   Math.cos(lat1) * Math.cos(lat2) *
-                   Math.sin(dlon / 2) * Math.sin(dlon / 2);
+        double[] latitudes = new double[orders.size()];
+        double[] longitudes = new double[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            Address address = orders.get(i).getDeliveryAddress();
+            if (!hasCoordinates(address)) {
+                return false;
+            }
+            latitudes[i] = address.getLatitude();
+            longitudes[i] = address.getLongitude();
+        }
         
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        RouteOptimizer.Route route = new RouteOptimizer(routeTimeBudgetMs)
+            .optimize(pickup.getLatitude(), pickup.getLongitude(), latitudes, longitudes);
         
-        return 6371 * c; // Earth's radius in kilometers
+        int[] stopOrder = route.getStopOrder();
+        double previousLatitude = pickup.getLatitude();
+        double previousLongitude = pickup.getLongitude();
+        double travelled = 0.0;
+        for (int position = 0; position < stopOrder.length; position++) {
+            int stop = stopOrder[position];
+            travelled += GeoKernel.haversineKm(previousLatitude, previousLongitude, latitudes[stop], longitudes[stop]);
+            routeKmToStop[stop] = travelled;
+            stopsBefore[stop] = position;
+            previousLatitude = latitudes[stop];
+            previousLongitude = longitudes[stop];
+        }
+        return true;
     }
     
-    private void publishMergeEvent(String mergedOrderId, List<Order> mergedOrders) {
-        try {
-            Map<String, Object> event = new HashMap<>();
-            event.put("eventType", "ORDERS_MERGED");
-            event.put("mergedOrderId", mergedOrderId);
-            event.put("orderIds", mergedOrders.stream().map(Order::getOrderId).collect(Collectors.toList()));
-            event.put("orderCount", mergedOrders.size());
-            event.put("restaurantId", mergedOrders.get(0).getRestaurantId());
-            event.put("estimatedTimeSavings", calculateTimeSavings(mergedOrders));
-            event.put("timestamp", LocalDateTime.now());
-            
-            kafkaTemplate.send("order-events", mergedOrderId, event);
-        } catch (Exception e) {
-            System.err.println("Failed to publish merge event: " + e.getMessage());
-        }
+    private OutboxEvent buildMergeEvent(String mergedOrderId, List<Order> mergedOrders) {
+        OrdersMergedEvent event = new OrdersMergedEvent(mergedOrderId, mergedOrders.get(0).getRestaurantId(),
+            mergedOrders.stream().map(Order::getOrderId).collect(Collectors.toList()),
+            clusteringStrategy.getName(), calculateTimeSavings(mergedOrders), Instant.now());
+        
+        return new OutboxEvent("order-events", mergedOrderId, event);
     }
     
     private int calculateTimeSavings(List<Order> orders) {
@@ -0,0 +1,183 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Order;
+import com.mergeeats.common.models.OutboxEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the outbox events stored on orders to Kafka.
+ *
+ * Events are written inside the order document by the same operation that changes the order, so an
+ * acknowledged order change always has its event persisted (MongoDB runs standalone here, which rules
+ * out multi-document transactions with a separate outbox collection). The relay picks up orders with
+ * pending events in batches, publishes each order's events one after another so they keep their order
+ * per orderId, and removes them only after the broker acknowledged them. Delivery is at least once:
+ * an event is re-sent if the relay stops between the ack and the removal. Payloads are stored already
+ * encoded, so they go out as raw bytes through the ByteArraySerializer.
+ *
+ * The relay runs on its own thread, so waiting for broker acks never holds up the shared scheduler.
+ * An order whose events cannot all be published is put back with an exponential backoff
+ * (outboxRetryAt), so orders that keep failing do not sit at the head of every batch and starve
+ * the orders behind them.
+ */
+@Component
+public class OrderOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderOutboxRelay.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Value("${order.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${order.outbox.relay-interval-ms:500}")
+    private long relayIntervalMs;
+
+    @Value("${order.outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${order.outbox.max-retry-backoff-ms:60000}")
+    private long maxRetryBackoffMs;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                relayPendingEvents();
+            } catch (Exception e) {
+                // A failed run must not cancel the schedule
+                logger.error("Outbox relay run failed: {}", e.getMessage(), e);
+            }
+        }, relayIntervalMs, relayIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public void relayPendingEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("pendingEvents.eventId").exists(true)
+                        .orOperator(Criteria.where("outboxRetryAt").is(null), Criteria.where("outboxRetryAt").lte(now)))
+                .with(Sort.by(Sort.Direction.ASC, "updatedAt"))
+                .limit(batchSize);
+        query.fields().include("pendingEvents", "outboxAttempts");
+
+        List<Order> orders = mongoTemplate.find(query, Order.class);
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        // Orders are independent, so their event chains run concurrently and share broker round-trips
+        Map<String, List<String>> ackedEventIds = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> chains = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            List<String> acked = Collections.synchronizedList(new ArrayList<>());
+            ackedEventIds.put(order.getOrderId(), acked);
+            chains.add(sendInOrder(order, acked));
+        }
+
+        try {
+            CompletableFuture.allOf(chains.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Failed or unfinished events stay in the outbox and are retried after a backoff
+            logger.warn("Outbox relay could not publish every pending event: {}", e.getMessage());
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        int removed = 0;
+        int deferred = 0;
+        for (Order order : orders) {
+            List<String> acked;
+            List<String> sent = ackedEventIds.get(order.getOrderId());
+            synchronized (sent) {
+                acked = new ArrayList<>(sent);
+            }
+
+            Update update = new Update();
+            if (!acked.isEmpty()) {
+                update.pull("pendingEvents", new Document("eventId", new Document("$in", acked)));
+                removed += acked.size();
+            }
+            if (acked.size() < order.getPendingEvents().size()) {
+                int attempts = order.getOutboxAttempts() + 1;
+                update.set("outboxAttempts", attempts).set("outboxRetryAt", now.plus(backoff(attempts), ChronoUnit.MILLIS));
+                deferred++;
+            } else if (order.getOutboxAttempts() > 0) {
+                update.unset("outboxAttempts").unset("outboxRetryAt");
+            } else if (acked.isEmpty()) {
+                continue;
+            }
+            bulkOperations.updateOne(Query.query(Criteria.where("_id").is(order.getOrderId())), update);
+        }
+
+        if (removed > 0 || deferred > 0) {
+            bulkOperations.execute();
+            logger.debug("Outbox relay published {} events from {} orders, deferred {} orders",
+                    removed, orders.size(), deferred);
+        }
+    }
+
+    // Doubles with every failed attempt, up to the maximum
+    private long backoff(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        return Math.min(maxRetryBackoffMs, retryBackoffMs << doublings);
+    }
+
+    /**
+     * Sends the events of one order strictly one after another. A failed send ends the chain, so
+     * later events of the same order are never published ahead of an earlier one.
+     */
+    private CompletableFuture<Void> sendInOrder(Order order, List<String> acked) {
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (OutboxEvent event : order.getPendingEvents()) {
+            chain = chain
+                    .thenCompose(previous -> kafkaTemplate.send(event.getTopic(), event.getKey(), event.getPayload()))
+                    .thenAccept(result -> acked.add(event.getEventId()));
+        }
+        return chain;
+    }
+}
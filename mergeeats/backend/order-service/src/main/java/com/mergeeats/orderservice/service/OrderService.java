@@ -1,18 +1,26 @@
 package com.mergeeats.orderservice.service;
 
+import com.mergeeats.common.events.GroupOrderCreatedEvent;
+import com.mergeeats.common.events.OrderEvent;
 import com.mergeeats.common.models.Order;
 import com.mergeeats.common.models.OrderItem;
+import com.mergeeats.common.models.OutboxEvent;
 import com.mergeeats.common.enums.OrderStatus;
 import com.mergeeats.common.enums.PaymentStatus;
 import com.mergeeats.orderservice.dto.CreateOrderRequest;
 import com.mergeeats.orderservice.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Async;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -24,17 +32,17 @@ public class OrderService {
     private OrderRepository orderRepository;
     
     @Autowired
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private MongoTemplate mongoTemplate;
     
     @Autowired
-    private OrderMergingService orderMergingService;
+    private OpenOrderPool openOrderPool;
+    
+    @Autowired
+    private MergeBatchScheduler mergeBatchScheduler;
     
     @Value("${order.merge.enabled:true}")
     private boolean mergingEnabled;
     
-    @Value("${order.merge.time-window-minutes:15}")
-    private int mergeTimeWindowMinutes;
-    
     public Order createOrder(CreateOrderRequest request) {
         // Validate order items and calculate total
         BigDecimal totalAmount = calculateOrderTotal(request.getItems());
@@ -53,15 +61,19 @@ public class OrderService {
         // Calculate fees
         calculateOrderFees(order);
         
+        // Assign the id up front so the created event can be keyed by it
+        order.setOrderId(new ObjectId().toHexString());
+        
+        // Order created event is saved with the order and relayed by OrderOutboxRelay
+        addOrderEvent(order, "ORDER_CREATED");
+        
         // Save order
         Order savedOrder = orderRepository.save(order);
+        openOrderPool.onOrderCreated(savedOrder);
         
-        // Publish order created event
-        publishOrderEvent("ORDER_CREATED", savedOrder);
-        
-        // Trigger order merging if enabled
+        // Queue the order for the next merge pass if enabled
         if (mergingEnabled && !request.isGroupOrder()) {
-            triggerOrderMerging(savedOrder);
+            mergeBatchScheduler.submit(savedOrder);
         }
         
         return savedOrder;
@@ -93,41 +105,60 @@ public class OrderService {
             throw new RuntimeException("Invalid status transition from " + previousStatus + " to " + newStatus);
         }
         
+        LocalDateTime now = LocalDateTime.now();
         order.setStatus(newStatus);
-        order.setUpdatedAt(LocalDateTime.now());
+        Update update = new Update()
+                .set("status", newStatus)
+                .set("updatedAt", now);
         
         // Set delivery time if order is delivered
         if (newStatus == OrderStatus.DELIVERED) {
-            order.setActualDeliveryTime(LocalDateTime.now());
+            update.set("actualDeliveryTime", now);
         }
         
-        Order updatedOrder = orderRepository.save(order);
+        // Status update event is pushed in the same write as the status
+        OutboxEvent event = new OutboxEvent("order-events", orderId, buildOrderEvent("ORDER_STATUS_UPDATED", order, null));
+        Order updatedOrder = transitionStatus(orderId, previousStatus, update, event);
+        openOrderPool.onOrderStatusChanged(updatedOrder);
+        
+        return updatedOrder;
+    }
+    
+    public Order updateEstimatedDeliveryTime(String orderId, LocalDateTime estimatedDeliveryTime) {
+        // Only the estimate is written, so concurrent merge writes and drained outbox events are kept
+        Order updatedOrder = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId)),
+                new Update()
+                        .set("estimatedDeliveryTime", estimatedDeliveryTime)
+                        .set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                Order.class);
+        if (updatedOrder == null) {
+            throw new RuntimeException("Order not found with id: " + orderId);
+        }
         
-        // Publish status update event
-        publishOrderEvent("ORDER_STATUS_UPDATED", updatedOrder);
+        openOrderPool.onOrderStatusChanged(updatedOrder);
         
         return updatedOrder;
     }
     
     public Order cancelOrder(String orderId, String reason) {
         Order order = getOrderById(orderId);
+        OrderStatus previousStatus = order.getStatus();
         
-        if (!order.getStatus().canBeCancelled()) {
-            throw new RuntimeException("Order cannot be cancelled in current status: " + order.getStatus());
+        if (!previousStatus.canBeCancelled()) {
+            throw new RuntimeException("Order cannot be cancelled in current status: " + previousStatus);
         }
         
         order.setStatus(OrderStatus.CANCELLED);
-        order.setUpdatedAt(LocalDateTime.now());
+        Update update = new Update()
+                .set("status", OrderStatus.CANCELLED)
+                .set("updatedAt", LocalDateTime.now());
         
-        Order cancelledOrder = orderRepository.save(order);
-        
-        // Publish cancellation event
-        Map<String, Object> eventData = new HashMap<>();
-        eventData.put("orderId", orderId);
-        eventData.put("reason", reason);
-        eventData.put("order", cancelledOrder);
-        
-        kafkaTemplate.send("order-events", orderId, eventData);
+        // Cancellation event is pushed in the same write as the status
+        OutboxEvent event = new OutboxEvent("order-events", orderId, buildOrderEvent("ORDER_CANCELLED", order, reason));
+        Order cancelledOrder = transitionStatus(orderId, previousStatus, update, event);
+        openOrderPool.onOrderStatusChanged(cancelledOrder);
         
         return cancelledOrder;
     }
@@ -136,23 +167,26 @@ public class OrderService {
         String groupOrderId = UUID.randomUUID().toString();
         List<Order> groupOrders = new ArrayList<>();
         
+        List<Order> createdOrders = new ArrayList<>();
         for (CreateOrderRequest request : orderRequests) {
             request.setGroupOrder(true);
             request.setGroupOrderId(groupOrderId);
             
             Order order = createOrder(request);
             order.setGroupOrderCreatorId(groupOrderCreatorId);
-            
-            groupOrders.add(orderRepository.save(order));
+            createdOrders.add(order);
         }
         
-        // Publish group order created event
-        Map<String, Object> eventData = new HashMap<>();
-        eventData.put("groupOrderId", groupOrderId);
-        eventData.put("creatorId", groupOrderCreatorId);
-        eventData.put("orders", groupOrders);
+        // Group order created event rides in the outbox of the first order of the group
+        if (!createdOrders.isEmpty()) {
+            GroupOrderCreatedEvent event = new GroupOrderCreatedEvent(groupOrderId, groupOrderCreatorId,
+                createdOrders.stream().map(Order::getOrderId).collect(Collectors.toList()), Instant.now());
+            createdOrders.get(0).addPendingEvent(new OutboxEvent("order-events", groupOrderId, event));
+        }
         
-        kafkaTemplate.send("order-events", groupOrderId, eventData);
+        for (Order order : createdOrders) {
+            groupOrders.add(orderRepository.save(order));
+        }
         
         return groupOrders;
     }
@@ -161,29 +195,6 @@ public class OrderService {
         return orderRepository.findByGroupOrderId(groupOrderId);
     }
     
-    @Async
-    public void triggerOrderMerging(Order newOrder) {
-        try {
-            LocalDateTime timeThreshold = LocalDateTime.now().minusMinutes(mergeTimeWindowMinutes);
-            List<Order> eligibleOrders = orderRepository.findOrdersEligibleForMerging(timeThreshold);
-            
-            // Filter orders by restaurant and location proximity
-            List<Order> candidateOrders = eligibleOrders.stream()
-                    .filter(order -> order.getRestaurantId().equals(newOrder.getRestaurantId()))
-                    .filter(order -> !order.getOrderId().equals(newOrder.getOrderId()))
-                    .filter(order -> orderMergingService.isWithinDeliveryRadius(newOrder, order))
-                    .collect(Collectors.toList());
-            
-            if (!candidateOrders.isEmpty()) {
-                candidateOrders.add(newOrder);
-                orderMergingService.mergeOrders(candidateOrders);
-            }
-        } catch (Exception e) {
-            // Log error but don't fail the order creation
-            System.err.println("Error in order merging: " + e.getMessage());
-        }
-    }
-    
     public List<Order> getMergedOrders(String mergedOrderId) {
         return orderRepository.findByMergedOrderId(mergedOrderId);
     }
@@ -244,6 +255,21 @@ public class OrderService {
         order.setTotalAmount(finalTotal);
     }
     
+    // Applies a status change only if the order is still in the status it was validated against.
+    // Only the changed fields are written, so merge fields and outbox pulls made meanwhile are kept.
+    private Order transitionStatus(String orderId, OrderStatus expectedStatus, Update update, OutboxEvent event) {
+        update.push("pendingEvents", event);
+        Order updatedOrder = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId).and("status").is(expectedStatus)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Order.class);
+        if (updatedOrder == null) {
+            throw new RuntimeException("Order " + orderId + " is no longer in status " + expectedStatus);
+        }
+        return updatedOrder;
+    }
+    
     private boolean isValidStatusTransition(OrderStatus currentStatus, OrderStatus newStatus) {
         // Define valid status transitions
         Map<OrderStatus, Set<OrderStatus>> validTransitions = Map.of(
@@ -258,21 +284,12 @@ public class OrderService {
         return validTransitions.getOrDefault(currentStatus, Set.of()).contains(newStatus);
     }
     
-    private void publishOrderEvent(String eventType, Order order) {
-        try {
-            Map<String, Object> event = new HashMap<>();
-            event.put("eventType", eventType);
-            event.put("orderId", order.getOrderId());
-            event.put("userId", order.getUserId());
-            event.put("restaurantId", order.getRestaurantId());
-            event.put("status", order.getStatus());
-            event.put("totalAmount", order.getTotalAmount());
-            event.put("timestamp", LocalDateTime.now());
-            
-            kafkaTemplate.send("order-events", order.getOrderId(), event);
-        } catch (Exception e) {
-            // Log error but don't fail the operation
-            System.err.println("Failed to publish order event: " + e.getMessage());
-        }
+    private void addOrderEvent(Order order, String eventType) {
+        order.addPendingEvent(new OutboxEvent("order-events", order.getOrderId(), buildOrderEvent(eventType, order, null)));
+    }
+    
+    private OrderEvent buildOrderEvent(String eventType, Order order, String reason) {
+        return new OrderEvent(eventType, order.getOrderId(), order.getUserId(), order.getRestaurantId(),
+            order.getStatus(), order.getTotalAmount(), reason, Instant.now());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Address;
+import com.mergeeats.common.models.Restaurant;
+import com.mergeeats.orderservice.client.RestaurantClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the restaurant data used for route planning and ETAs: pickup location and average
+ * preparation time. Both rarely change, so each restaurant is fetched from restaurant-service at
+ * most once per order.restaurant-directory.ttl-seconds. A failed lookup is remembered for
+ * order.restaurant-directory.failure-ttl-seconds, serving the last known data if there is any, so
+ * merge runs do not wait on a restaurant-service that is down for every order.
+ */
+@Component
+public class RestaurantDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantDirectory.class);
+
+    @Autowired
+    private RestaurantClient restaurantClient;
+
+    @Value("${order.restaurant-directory.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${order.restaurant-directory.failure-ttl-seconds:30}")
+    private long failureTtlSeconds;
+
+    private final Map<String, Entry> restaurants = new ConcurrentHashMap<>();
+
+    /**
+     * A restaurant as last fetched (null when the lookup failed) and the System.nanoTime() it is
+     * trusted until.
+     */
+    private static final class Entry {
+
+        final Restaurant restaurant;
+        final long expiresAtNanos;
+
+        Entry(Restaurant restaurant, long expiresAtNanos) {
+            this.restaurant = restaurant;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Returns the pickup address of a restaurant, or null when it is unknown or has no coordinates.
+     */
+    public Address getPickupAddress(String restaurantId) {
+        Restaurant restaurant = getRestaurant(restaurantId);
+        Address address = restaurant != null ? restaurant.getAddress() : null;
+        if (address == null || address.getLatitude() == null || address.getLongitude() == null) {
+            return null;
+        }
+        return address;
+    }
+
+    /**
+     * Returns the average preparation time of a restaurant in minutes, or null when it is unknown.
+     */
+    public Integer getAveragePreparationTime(String restaurantId) {
+        Restaurant restaurant = getRestaurant(restaurantId);
+        return restaurant != null ? restaurant.getAveragePreparationTime() : null;
+    }
+
+    private Restaurant getRestaurant(String restaurantId) {
+        if (restaurantId == null) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        Entry cached = restaurants.get(restaurantId);
+        if (cached != null && now - cached.expiresAtNanos < 0) {
+            return cached.restaurant;
+        }
+
+        Restaurant restaurant = null;
+        try {
+            restaurant = restaurantClient.getRestaurant(restaurantId);
+        } catch (Exception e) {
+            logger.warn("Could not fetch restaurant {}: {}", restaurantId, e.getMessage());
+        }
+
+        if (restaurant != null) {
+            restaurants.put(restaurantId, new Entry(restaurant, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+            return restaurant;
+        }
+
+        // Keep serving what we last knew, and do not ask again until the failure entry expires
+        Restaurant stale = cached != null ? cached.restaurant : null;
+        restaurants.put(restaurantId, new Entry(stale, now + TimeUnit.SECONDS.toNanos(failureTtlSeconds)));
+        return stale;
+    }
+}
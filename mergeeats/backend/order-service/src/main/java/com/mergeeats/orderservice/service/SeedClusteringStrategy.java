@@ -0,0 +1,55 @@
+package com.mergeeats.orderservice.service;
+
+import com.mergeeats.common.models.Order;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Greedy seed-based clustering.
+ * Each remaining order in list order seeds a cluster and pulls in every later unclustered order
+ * within the merge radius. Cheap, but the result depends on list order.
+ */
+@Component
+@ConditionalOnProperty(name = "order.merge.clustering-strategy", havingValue = "seed", matchIfMissing = true)
+public class SeedClusteringStrategy implements OrderClusteringStrategy {
+
+    @Override
+    public String getName() {
+        return "seed";
+    }
+
+    @Override
+    public List<List<Order>> cluster(List<Order> orders, double maxDistanceKm) {
+        List<List<Order>> clusters = new ArrayList<>();
+        IndexedOrders indexed = new IndexedOrders(orders, maxDistanceKm);
+
+        boolean[] clustered = new boolean[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            if (clustered[i]) {
+                continue;
+            }
+            clustered[i] = true;
+
+            List<Order> cluster = new ArrayList<>();
+            cluster.add(orders.get(i));
+
+            // Every order before i is already clustered, so the unclustered neighbours are exactly
+            // the later orders within the radius; sort to keep list order
+            List<Integer> neighbours = indexed.neighbours(i);
+            neighbours.sort(null);
+            for (int j : neighbours) {
+                if (!clustered[j]) {
+                    cluster.add(orders.get(j));
+                    clustered[j] = true;
+                }
+            }
+
+            clusters.add(cluster);
+        }
+
+        return clusters;
+    }
+}
@@ -1,5 +1,6 @@
 package com.mergeeats.common.enums;
 
+// Written by ordinal in binary events (EventCodec): append new constants at the end, never reorder or remove
 public enum DeliveryStatus {
     PENDING("Delivery is pending assignment"),
     ASSIGNED("Delivery has been assigned to a partner"),
@@ -1,5 +1,6 @@
 package com.mergeeats.common.enums;
 
+// Written by ordinal in binary events (EventCodec): append new constants at the end, never reorder or remove
 public enum OrderStatus {
     PENDING("Order placed, waiting for restaurant confirmation"),
     CONFIRMED("Order confirmed by restaurant"),
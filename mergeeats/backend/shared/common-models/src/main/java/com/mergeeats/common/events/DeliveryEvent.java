@@ -0,0 +1,16 @@
+package com.mergeeats.common.events;
+
+import com.mergeeats.common.enums.DeliveryStatus;
+
+import java.time.Instant;
+
+/**
+ * Lifecycle event of a delivery, e.g. delivery.created or delivery.status.updated.
+ */
+public record DeliveryEvent(
+        String eventType,
+        String deliveryId,
+        String orderId,
+        DeliveryStatus status,
+        Instant timestamp) implements MergeEatsEvent {
+}
@@ -0,0 +1,165 @@
+package com.mergeeats.common.events;
+
+import com.mergeeats.common.enums.DeliveryStatus;
+import com.mergeeats.common.enums.OrderStatus;
+import com.mergeeats.common.models.DeliveryPartner.AvailabilityStatus;
+
+/**
+ * Compact binary encoding of {@link MergeEatsEvent}s.
+ *
+ * Layout: one schema version byte, one type tag byte, then the record's fields in declaration order.
+ * Strings are length-prefixed UTF-8, integers and timestamps (epoch millis) are varints, doubles take
+ * eight bytes and enums are written by ordinal. Field names are never written, which is where most of
+ * the saving over the JSON maps comes from.
+ *
+ * Evolving the schema: new fields are only ever appended to a record, and {@link #SCHEMA_VERSION} is
+ * bumped with them. Readers ignore bytes they do not know, so older consumers keep reading newer
+ * events; newer readers check the version before reading appended fields. Type tags and enum
+ * constants are never reused or reordered, and an enum constant an older reader does not know yet
+ * is read as null.
+ */
+public final class EventCodec {
+
+    public static final int SCHEMA_VERSION = 1;
+
+    private static final int ORDER_EVENT = 1;
+    private static final int ORDERS_MERGED = 2;
+    private static final int GROUP_ORDER_CREATED = 3;
+    private static final int DELIVERY_EVENT = 10;
+    private static final int PARTNER_STATUS_CHANGED = 20;
+    private static final int PARTNER_LOCATION_UPDATED = 21;
+    private static final int PARTNER_ORDER = 22;
+    private static final int PARTNER_RATING_UPDATED = 23;
+    private static final int PARTNER_DEACTIVATED = 24;
+
+    private static final OrderStatus[] ORDER_STATUSES = OrderStatus.values();
+    private static final DeliveryStatus[] DELIVERY_STATUSES = DeliveryStatus.values();
+    private static final AvailabilityStatus[] AVAILABILITY_STATUSES = AvailabilityStatus.values();
+
+    private EventCodec() {
+    }
+
+    public static byte[] encode(MergeEatsEvent event) {
+        EventWriter out = new EventWriter(96);
+        out.writeByte(SCHEMA_VERSION);
+
+        if (event instanceof OrderEvent e) {
+            out.writeByte(ORDER_EVENT);
+            out.writeString(e.eventType());
+            out.writeString(e.orderId());
+            out.writeString(e.userId());
+            out.writeString(e.restaurantId());
+            out.writeEnum(e.status());
+            out.writeDecimal(e.totalAmount());
+            out.writeString(e.reason());
+            out.writeInstant(e.timestamp());
+        } else if (event instanceof OrdersMergedEvent e) {
+            out.writeByte(ORDERS_MERGED);
+            out.writeString(e.mergedOrderId());
+            out.writeString(e.restaurantId());
+            out.writeStringList(e.orderIds());
+            out.writeString(e.clusteringStrategy());
+            out.writeSignedVarLong(e.estimatedTimeSavings());
+            out.writeInstant(e.timestamp());
+        } else if (event instanceof GroupOrderCreatedEvent e) {
+            out.writeByte(GROUP_ORDER_CREATED);
+            out.writeString(e.groupOrderId());
+            out.writeString(e.creatorId());
+            out.writeStringList(e.orderIds());
+            out.writeInstant(e.timestamp());
+        } else if (event instanceof DeliveryEvent e) {
+            out.writeByte(DELIVERY_EVENT);
+            out.writeString(e.eventType());
+            out.writeString(e.deliveryId());
+            out.writeString(e.orderId());
+            out.writeEnum(e.status());
+            out.writeInstant(e.timestamp());
+        } else if (event instanceof PartnerStatusChangedEvent e) {
+            out.writeByte(PARTNER_STATUS_CHANGED);
+            out.writeString(e.partnerId());
+            out.writeString(e.userId());
+            out.writeEnum(e.previousStatus());
+            out.writeEnum(e.currentStatus());
+            out.writeInstant(e.timestamp());
+        } else if (event instanceof PartnerLocationUpdatedEvent e) {
+            out.writeByte(PARTNER_LOCATION_UPDATED);
+            out.writeString(e.partnerId());
+            out.writeString(e.userId());
+            out.writeDouble(e.latitude());
+            out.writeDouble(e.longitude());
+            out.writeInstant(e.timestamp());
+        } else if (event instanceof PartnerOrderEvent e) {
+            out.writeByte(PARTNER_ORDER);
+            out.writeString(e.eventType());
+            out.writeString(e.partnerId());
+            out.writeString(e.userId());
+            out.writeString(e.orderId());
+            out.writeString(e.reason());
+            out.writeInstant(e.timestamp());
+        } else if (event instanceof PartnerRatingUpdatedEvent e) {
+            out.writeByte(PARTNER_RATING_UPDATED);
+            out.writeString(e.partnerId());
+            out.writeString(e.userId());
+            out.writeDouble(e.updatedRating());
+            out.writeDouble(e.currentRating());
+            out.writeInstant(e.timestamp());
+        } else if (event instanceof PartnerDeactivatedEvent e) {
+            out.writeByte(PARTNER_DEACTIVATED);
+            out.writeString(e.partnerId());
+            out.writeString(e.userId());
+            out.writeString(e.reason());
+            out.writeInstant(e.timestamp());
+        } else {
+            throw new IllegalArgumentException("Unsupported event type: "
+                    + (event == null ? "null" : event.getClass().getName()));
+        }
+
+        return out.toByteArray();
+    }
+
+    public static MergeEatsEvent decode(byte[] data) {
+        if (data == null || data.length < 2) {
+            throw new IllegalArgumentException("Event payload is too short");
+        }
+
+        EventReader in = new EventReader(data);
+        // Newer versions only append fields, which are left unread here
+        int version = in.readByte();
+        if (version < 1) {
+            throw new IllegalArgumentException("Invalid event schema version " + version);
+        }
+
+        int type = in.readByte();
+        switch (type) {
+            case ORDER_EVENT:
+                return new OrderEvent(in.readString(), in.readString(), in.readString(), in.readString(),
+                        in.readEnum(ORDER_STATUSES), in.readDecimal(), in.readString(), in.readInstant());
+            case ORDERS_MERGED:
+                return new OrdersMergedEvent(in.readString(), in.readString(), in.readStringList(), in.readString(),
+                        in.readInt(), in.readInstant());
+            case GROUP_ORDER_CREATED:
+                return new GroupOrderCreatedEvent(in.readString(), in.readString(), in.readStringList(),
+                        in.readInstant());
+            case DELIVERY_EVENT:
+                return new DeliveryEvent(in.readString(), in.readString(), in.readString(),
+                        in.readEnum(DELIVERY_STATUSES), in.readInstant());
+            case PARTNER_STATUS_CHANGED:
+                return new PartnerStatusChangedEvent(in.readString(), in.readString(),
+                        in.readEnum(AVAILABILITY_STATUSES), in.readEnum(AVAILABILITY_STATUSES), in.readInstant());
+            case PARTNER_LOCATION_UPDATED:
+                return new PartnerLocationUpdatedEvent(in.readString(), in.readString(), in.readDouble(),
+                        in.readDouble(), in.readInstant());
+            case PARTNER_ORDER:
+                return new PartnerOrderEvent(in.readString(), in.readString(), in.readString(), in.readString(),
+                        in.readString(), in.readInstant());
+            case PARTNER_RATING_UPDATED:
+                return new PartnerRatingUpdatedEvent(in.readString(), in.readString(), in.readDouble(),
+                        in.readDouble(), in.readInstant());
+            case PARTNER_DEACTIVATED:
+                return new PartnerDeactivatedEvent(in.readString(), in.readString(), in.readString(),
+                        in.readInstant());
+            default:
+                throw new IllegalArgumentException("Unknown event type tag " + type);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.mergeeats.common.events;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka deserializer reading {@link MergeEatsEvent}s written by {@link EventSerializer}. Wrap it in
+ * spring-kafka's ErrorHandlingDeserializer so that a corrupt record does not block the partition.
+ */
+public class EventDeserializer implements Deserializer<MergeEatsEvent> {
+
+    @Override
+    public MergeEatsEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return EventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Cannot deserialize event from topic " + topic, e);
+        }
+    }
+}
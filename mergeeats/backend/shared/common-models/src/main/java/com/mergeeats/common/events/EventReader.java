@@ -0,0 +1,154 @@
+package com.mergeeats.common.events;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the field encodings written by {@link EventWriter}. Malformed or truncated input fails with
+ * an {@link IllegalArgumentException}.
+ */
+final class EventReader {
+
+    private final byte[] buffer;
+    private int position;
+
+    EventReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = buffer[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in event payload");
+    }
+
+    long readSignedVarLong() {
+        long raw = readVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    int readInt() {
+        long value = readSignedVarLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Integer field out of range in event payload");
+        }
+        return (int) value;
+    }
+
+    double readDouble() {
+        require(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (buffer[position++] & 0xFF);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    String readString() {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    List<String> readStringList() {
+        int size = readLength();
+        if (size < 0) {
+            return null;
+        }
+        // Every element takes at least one byte, which bounds the allocation for corrupt sizes
+        require(size);
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    <E extends Enum<E>> E readEnum(E[] constants) {
+        long value = readVarLong();
+        if (value == 0) {
+            return null;
+        }
+        if (value > constants.length) {
+            // A constant appended after this reader was built; read as null so the event still decodes
+            return null;
+        }
+        return constants[(int) value - 1];
+    }
+
+    Instant readInstant() {
+        long value = readVarLong();
+        if (value == 0) {
+            return null;
+        }
+        long zigzag = value - 1;
+        return Instant.ofEpochMilli((zigzag >>> 1) ^ -(zigzag & 1));
+    }
+
+    BigDecimal readDecimal() {
+        int kind = readByte();
+        switch (kind) {
+            case 0:
+                return null;
+            case 1: {
+                int scale = readInt();
+                return BigDecimal.valueOf(readSignedVarLong(), scale);
+            }
+            case 2: {
+                int scale = readInt();
+                int length = readLength0();
+                require(length);
+                byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+                position += length;
+                return new BigDecimal(new BigInteger(bytes), scale);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown decimal encoding " + kind + " in event payload");
+        }
+    }
+
+    /** Reads a null-aware length (0 = null); returns -1 for null. */
+    private int readLength() {
+        long value = readVarLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Length out of range in event payload");
+        }
+        return (int) value - 1;
+    }
+
+    private int readLength0() {
+        long value = readVarLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Length out of range in event payload");
+        }
+        return (int) value;
+    }
+
+    private void require(int bytes) {
+        if (bytes > buffer.length - position) {
+            throw new IllegalArgumentException("Truncated event payload");
+        }
+    }
+}
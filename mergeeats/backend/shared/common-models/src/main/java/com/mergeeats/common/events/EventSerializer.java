@@ -0,0 +1,22 @@
+package com.mergeeats.common.events;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer writing {@link MergeEatsEvent}s in the {@link EventCodec} binary format.
+ */
+public class EventSerializer implements Serializer<MergeEatsEvent> {
+
+    @Override
+    public byte[] serialize(String topic, MergeEatsEvent event) {
+        if (event == null) {
+            return null;
+        }
+        try {
+            return EventCodec.encode(event);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Cannot serialize event for topic " + topic, e);
+        }
+    }
+}
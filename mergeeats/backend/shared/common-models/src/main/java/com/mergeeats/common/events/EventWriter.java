@@ -0,0 +1,134 @@
+package com.mergeeats.common.events;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Appends the primitive field encodings of {@link EventCodec} to a growable buffer.
+ * Lengths and optional values are written as varints where 0 means null, so absent fields cost one byte.
+ */
+final class EventWriter {
+
+    private byte[] buffer;
+    private int position;
+
+    EventWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    /** Unsigned LEB128; only for values that are never negative. */
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (bits >>> shift);
+        }
+    }
+
+    void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+
+        if (ascii) {
+            // Ids, enum names and event types are ASCII; skip the intermediate byte[] for them
+            writeVarLong(length + 1L);
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = (byte) value.charAt(i);
+            }
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    void writeStringList(List<String> values) {
+        if (values == null) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(values.size() + 1L);
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    /** Enums are written by ordinal, so constants of event enums must only ever be appended. */
+    void writeEnum(Enum<?> value) {
+        writeVarLong(value == null ? 0 : value.ordinal() + 1L);
+    }
+
+    void writeInstant(Instant value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        long millis = value.toEpochMilli();
+        writeVarLong(((millis << 1) ^ (millis >> 63)) + 1);
+    }
+
+    void writeDecimal(BigDecimal value) {
+        if (value == null) {
+            writeByte(0);
+            return;
+        }
+
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            writeByte(1);
+            writeSignedVarLong(value.scale());
+            writeSignedVarLong(unscaled.longValue());
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            writeByte(2);
+            writeSignedVarLong(value.scale());
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    private void ensureCapacity(int additional) {
+        if (position + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+        }
+    }
+}
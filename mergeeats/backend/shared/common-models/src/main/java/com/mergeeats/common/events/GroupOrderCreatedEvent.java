@@ -0,0 +1,21 @@
+package com.mergeeats.common.events;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A group order was placed; one order per participant.
+ */
+public record GroupOrderCreatedEvent(
+        String groupOrderId,
+        String creatorId,
+        List<String> orderIds,
+        Instant timestamp) implements MergeEatsEvent {
+
+    public static final String EVENT_TYPE = "GROUP_ORDER_CREATED";
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+}
@@ -0,0 +1,16 @@
+package com.mergeeats.common.events;
+
+import java.time.Instant;
+
+/**
+ * An event published between MergeEats services. Events are immutable records that travel as the
+ * compact binary encoding of {@link EventCodec}; every record type has its own type tag there.
+ */
+public sealed interface MergeEatsEvent permits OrderEvent, OrdersMergedEvent, GroupOrderCreatedEvent,
+        DeliveryEvent, PartnerStatusChangedEvent, PartnerLocationUpdatedEvent, PartnerOrderEvent,
+        PartnerRatingUpdatedEvent, PartnerDeactivatedEvent {
+
+    String eventType();
+
+    Instant timestamp();
+}
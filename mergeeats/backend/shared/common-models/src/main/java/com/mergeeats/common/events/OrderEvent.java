@@ -0,0 +1,21 @@
+package com.mergeeats.common.events;
+
+import com.mergeeats.common.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Lifecycle event of a single order: ORDER_CREATED, ORDER_STATUS_UPDATED or ORDER_CANCELLED.
+ * The reason is only set for cancellations.
+ */
+public record OrderEvent(
+        String eventType,
+        String orderId,
+        String userId,
+        String restaurantId,
+        OrderStatus status,
+        BigDecimal totalAmount,
+        String reason,
+        Instant timestamp) implements MergeEatsEvent {
+}
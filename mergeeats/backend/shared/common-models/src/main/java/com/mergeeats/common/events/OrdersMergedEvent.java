@@ -0,0 +1,23 @@
+package com.mergeeats.common.events;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Orders of one restaurant were merged into a single delivery.
+ */
+public record OrdersMergedEvent(
+        String mergedOrderId,
+        String restaurantId,
+        List<String> orderIds,
+        String clusteringStrategy,
+        int estimatedTimeSavings,
+        Instant timestamp) implements MergeEatsEvent {
+
+    public static final String EVENT_TYPE = "ORDERS_MERGED";
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+}
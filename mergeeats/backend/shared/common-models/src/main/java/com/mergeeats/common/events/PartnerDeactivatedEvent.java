@@ -0,0 +1,20 @@
+package com.mergeeats.common.events;
+
+import java.time.Instant;
+
+/**
+ * A delivery partner was deactivated.
+ */
+public record PartnerDeactivatedEvent(
+        String partnerId,
+        String userId,
+        String reason,
+        Instant timestamp) implements MergeEatsEvent {
+
+    public static final String EVENT_TYPE = "partner-deactivated";
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+}
@@ -0,0 +1,22 @@
+package com.mergeeats.common.events;
+
+import java.time.Instant;
+
+/**
+ * A delivery partner reported a new position. Coordinates are NaN when the partner sent an address
+ * without coordinates.
+ */
+public record PartnerLocationUpdatedEvent(
+        String partnerId,
+        String userId,
+        double latitude,
+        double longitude,
+        Instant timestamp) implements MergeEatsEvent {
+
+    public static final String EVENT_TYPE = "location-updated";
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+}
@@ -0,0 +1,16 @@
+package com.mergeeats.common.events;
+
+import java.time.Instant;
+
+/**
+ * An order was assigned to, completed by or cancelled for a delivery partner
+ * (order-assigned, order-completed, order-cancelled). The reason is only set for cancellations.
+ */
+public record PartnerOrderEvent(
+        String eventType,
+        String partnerId,
+        String userId,
+        String orderId,
+        String reason,
+        Instant timestamp) implements MergeEatsEvent {
+}
@@ -0,0 +1,21 @@
+package com.mergeeats.common.events;
+
+import java.time.Instant;
+
+/**
+ * A customer rated a delivery partner; currentRating is the partner's rating after the update.
+ */
+public record PartnerRatingUpdatedEvent(
+        String partnerId,
+        String userId,
+        double updatedRating,
+        double currentRating,
+        Instant timestamp) implements MergeEatsEvent {
+
+    public static final String EVENT_TYPE = "rating-updated";
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+}
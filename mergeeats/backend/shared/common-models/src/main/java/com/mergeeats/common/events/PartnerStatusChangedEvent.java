@@ -0,0 +1,23 @@
+package com.mergeeats.common.events;
+
+import com.mergeeats.common.models.DeliveryPartner.AvailabilityStatus;
+
+import java.time.Instant;
+
+/**
+ * A delivery partner's availability changed.
+ */
+public record PartnerStatusChangedEvent(
+        String partnerId,
+        String userId,
+        AvailabilityStatus previousStatus,
+        AvailabilityStatus currentStatus,
+        Instant timestamp) implements MergeEatsEvent {
+
+    public static final String EVENT_TYPE = "status-changed";
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+}
@@ -0,0 +1,10 @@
+package com.mergeeats.common.geo;
+
+/**
+ * Computes squared chord lengths from one unit vector to a run of unit vectors.
+ */
+interface ChordKernel {
+
+    void chordSquared(double x, double y, double z,
+                      double[] xs, double[] ys, double[] zs, int count, double[] out);
+}
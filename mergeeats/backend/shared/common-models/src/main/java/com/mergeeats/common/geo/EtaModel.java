@@ -0,0 +1,72 @@
+package com.mergeeats.common.geo;
+
+import com.mergeeats.common.models.DeliveryPartner.VehicleType;
+
+/**
+ * Travel-time model shared by order ETAs and live delivery ETAs.
+ *
+ * Distances are straight-line (great-circle) kilometres, as produced by {@link GeoKernel} and
+ * {@link RouteOptimizer}; the road factor turns them into road distance, and the vehicle speed
+ * profile into minutes. Every stop, pickup included, adds a fixed handoff time.
+ */
+public class EtaModel {
+
+    private final double roadFactor;
+    private final double handoffMinutes;
+
+    public EtaModel(double roadFactor, double handoffMinutes) {
+        this.roadFactor = roadFactor;
+        this.handoffMinutes = handoffMinutes;
+    }
+
+    /**
+     * Average urban speeds, including stops at junctions.
+     */
+    public static double speedKmh(VehicleType vehicleType) {
+        if (vehicleType == null) {
+            return 20.0;
+        }
+        switch (vehicleType) {
+            case BICYCLE:
+                return 12.0;
+            case SCOOTER:
+                return 22.0;
+            case MOTORCYCLE:
+                return 25.0;
+            case CAR:
+                return 20.0;
+            default:
+                return 20.0;
+        }
+    }
+
+    /**
+     * Minutes to cover a straight-line distance by road, without stops.
+     */
+    public double travelMinutes(VehicleType vehicleType, double distanceKm) {
+        return distanceKm * roadFactor / speedKmh(vehicleType) * 60.0;
+    }
+
+    /**
+     * Minutes from now until a drop-off, for a partner that still has to collect the food.
+     *
+     * @param partnerToPickupKm distance from the partner to the pickup, or 0 when the partner is
+     *                          already there or not known yet
+     * @param readyInMinutes    minutes until the food is ready; negative or 0 when it is ready
+     * @param routeKm           route distance from the pickup to the drop-off, through any stops
+     *                          visited before it
+     * @param stopsBefore       drop-offs on the route before this one
+     */
+    public double minutesToDropoffViaPickup(VehicleType vehicleType, double partnerToPickupKm, double readyInMinutes,
+                                            double routeKm, int stopsBefore) {
+        double pickupAt = Math.max(travelMinutes(vehicleType, partnerToPickupKm), Math.max(0.0, readyInMinutes));
+        return pickupAt + handoffMinutes + minutesToDropoff(vehicleType, routeKm, stopsBefore);
+    }
+
+    /**
+     * Minutes from now until a drop-off, for a partner that already carries the food.
+     */
+    public double minutesToDropoff(VehicleType vehicleType, double routeKm, int stopsBefore) {
+        return travelMinutes(vehicleType, routeKm) + (stopsBefore + 1) * handoffMinutes;
+    }
+}
@@ -0,0 +1,173 @@
+package com.mergeeats.common.geo;
+
+/**
+ * Shared great-circle distance math for merging, routing and partner assignment.
+ *
+ * Single distances use the haversine formula on primitive coordinates. Bulk work goes through
+ * {@link GeoPoints}: each point is turned into a unit vector once, and the distance between two
+ * points follows from the squared chord between their vectors (2R·asin(chord/2)), which needs only
+ * multiplications and additions per pair. Radius checks compare squared chords directly and skip
+ * the asin entirely.
+ *
+ * The chord rows are computed by a scalar loop. The benchmarks module ships a Vector API kernel
+ * that is used instead when it is on the classpath and the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, unless {@code -Dmergeeats.geo.vector=false} is set.
+ */
+public final class GeoKernel {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    // The equirectangular pre-filter is only trusted well away from the poles and for short radii,
+    // where its error stays far below PREFILTER_SLACK
+    private static final double PREFILTER_MAX_RADIUS_KM = 100.0;
+    private static final double PREFILTER_MAX_ABS_LATITUDE = 70.0;
+    private static final double PREFILTER_SLACK = 0.05;
+
+    private static final ChordKernel CHORD_KERNEL = loadChordKernel();
+
+    private GeoKernel() {
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Flat-earth approximation of the distance between two nearby points. Needs a single cosine and
+     * is accurate to well under one percent for the distances found inside a city.
+     */
+    public static double equirectangularKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLon = Math.toRadians(lon2 - lon1);
+        if (dLon > Math.PI) {
+            dLon -= 2 * Math.PI;
+        } else if (dLon < -Math.PI) {
+            dLon += 2 * Math.PI;
+        }
+        double x = dLon * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Exact radius check with a cheap pre-filter: the latitude gap alone is a lower bound on the
+     * distance, and the equirectangular approximation settles every pair that is not close to the
+     * boundary. Only those borderline pairs pay for the haversine.
+     */
+    public static boolean isWithinKm(double lat1, double lon1, double lat2, double lon2, double radiusKm) {
+        if (EARTH_RADIUS_KM * Math.toRadians(Math.abs(lat2 - lat1)) > radiusKm) {
+            return false;
+        }
+
+        if (radiusKm <= PREFILTER_MAX_RADIUS_KM
+                && Math.abs(lat1) <= PREFILTER_MAX_ABS_LATITUDE && Math.abs(lat2) <= PREFILTER_MAX_ABS_LATITUDE) {
+            double approximate = equirectangularKm(lat1, lon1, lat2, lon2);
+            if (approximate > radiusKm * (1 + PREFILTER_SLACK)) {
+                return false;
+            }
+            if (approximate < radiusKm * (1 - PREFILTER_SLACK)) {
+                return true;
+            }
+        }
+
+        return haversineKm(lat1, lon1, lat2, lon2) <= radiusKm;
+    }
+
+    /**
+     * Latitude/longitude bounds of the circle of the given radius, as
+     * {minLatitude, maxLatitude, minLongitude, maxLongitude}. Longitudes are not wrapped at the
+     * antimeridian and span the whole globe when the circle contains a pole.
+     */
+    public static double[] boundingBox(double latitude, double longitude, double radiusKm) {
+        double angularRadius = radiusKm / EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(angularRadius);
+        double minLatitude = Math.max(-90.0, latitude - dLat);
+        double maxLatitude = Math.min(90.0, latitude + dLat);
+
+        double sinRatio = Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude));
+        if (sinRatio >= 1.0 || Double.isNaN(sinRatio) || angularRadius >= Math.PI / 2) {
+            return new double[]{minLatitude, maxLatitude, -180.0, 180.0};
+        }
+
+        double dLon = Math.toDegrees(Math.asin(sinRatio));
+        return new double[]{minLatitude, maxLatitude, longitude - dLon, longitude + dLon};
+    }
+
+    /**
+     * Squared unit-sphere chord matching a great-circle distance, for comparisons against
+     * {@link GeoPoints#chordSquared}.
+     */
+    public static double chordSquaredForKm(double distanceKm) {
+        double halfChord = Math.sin(Math.min(distanceKm / EARTH_RADIUS_KM, Math.PI) / 2);
+        return 4 * halfChord * halfChord;
+    }
+
+    public static double kmForChordSquared(double chordSquared) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(chordSquared) / 2));
+    }
+
+    /**
+     * Distances in kilometres from point {@code index} of {@code from} to every point of {@code to}.
+     *
+     * @param out receives the distances, must hold at least {@code to.size()} values
+     */
+    public static void distancesKm(GeoPoints from, int index, GeoPoints to, double[] out) {
+        int n = to.size();
+        CHORD_KERNEL.chordSquared(from.x[index], from.y[index], from.z[index], to.x, to.y, to.z, n, out);
+        for (int j = 0; j < n; j++) {
+            out[j] = kmForChordSquared(out[j]);
+        }
+    }
+
+    /**
+     * Full distance matrix in kilometres between two point sets, indexed [from][to].
+     */
+    public static double[][] distanceMatrixKm(GeoPoints from, GeoPoints to) {
+        double[][] matrix = new double[from.size()][to.size()];
+        for (int i = 0; i < from.size(); i++) {
+            distancesKm(from, i, to, matrix[i]);
+        }
+        return matrix;
+    }
+
+    public static double[][] distanceMatrixKm(GeoPoints points) {
+        return distanceMatrixKm(points, points);
+    }
+
+    public static boolean isVectorized() {
+        return !(CHORD_KERNEL instanceof ScalarChordKernel);
+    }
+
+    private static ChordKernel loadChordKernel() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty("mergeeats.geo.vector", "true"));
+        if (enabled && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (ChordKernel) Class.forName("com.mergeeats.common.geo.VectorChordKernel")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall through to the scalar kernel
+            }
+        }
+        return new ScalarChordKernel();
+    }
+
+    private static final class ScalarChordKernel implements ChordKernel {
+
+        @Override
+        public void chordSquared(double x, double y, double z,
+                                 double[] xs, double[] ys, double[] zs, int count, double[] out) {
+            for (int i = 0; i < count; i++) {
+                double dx = xs[i] - x;
+                double dy = ys[i] - y;
+                double dz = zs[i] - z;
+                out[i] = dx * dx + dy * dy + dz * dz;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.mergeeats.common.geo;
+
+/**
+ * A set of latitude/longitude points stored as primitive arrays, together with their unit vectors
+ * on the sphere. The unit vectors are computed once per point, after which the distance between any
+ * two points needs no trigonometry until it is converted to kilometres (see {@link GeoKernel}).
+ */
+public final class GeoPoints {
+
+    final double[] latitudes;
+    final double[] longitudes;
+    final double[] x;
+    final double[] y;
+    final double[] z;
+
+    private GeoPoints(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.x = new double[n];
+        this.y = new double[n];
+        this.z = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            double phi = Math.toRadians(latitudes[i]);
+            double lambda = Math.toRadians(longitudes[i]);
+            double cosPhi = Math.cos(phi);
+            x[i] = cosPhi * Math.cos(lambda);
+            y[i] = cosPhi * Math.sin(lambda);
+            z[i] = Math.sin(phi);
+        }
+    }
+
+    /**
+     * Builds a point set from index-aligned latitude and longitude arrays in degrees. The arrays are
+     * not copied and must not be modified afterwards.
+     */
+    public static GeoPoints of(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Latitude and longitude arrays differ in length");
+        }
+        return new GeoPoints(latitudes, longitudes);
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    public double latitude(int index) {
+        return latitudes[index];
+    }
+
+    public double longitude(int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * Squared chord length between two points of this set on the unit sphere. It grows monotonically
+     * with the great-circle distance, so it can be compared against {@link GeoKernel#chordSquaredForKm}.
+     */
+    public double chordSquared(int i, int j) {
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        double dz = z[i] - z[j];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    public double distanceKm(int i, int j) {
+        return GeoKernel.kmForChordSquared(chordSquared(i, j));
+    }
+}
@@ -0,0 +1,215 @@
+package com.mergeeats.common.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Orders the drop-offs of a multi-stop delivery.
+ *
+ * The route starts at a fixed origin (usually the restaurant pickup) and visits every stop once
+ * without returning, i.e. an open-path TSP. A nearest-neighbour tour is used as the seed and then
+ * improved with 2-opt segment reversals and Or-opt segment moves until no move helps or the time
+ * budget runs out. The result is near-optimal for the handful of stops a merged delivery has.
+ */
+public class RouteOptimizer {
+
+    private static final double IMPROVEMENT_EPSILON_KM = 1e-9;
+    private static final int MAX_OR_OPT_SEGMENT = 3;
+
+    private final long timeBudgetNanos;
+
+    public RouteOptimizer(long timeBudgetMillis) {
+        this.timeBudgetNanos = Math.max(0, timeBudgetMillis) * 1_000_000L;
+    }
+
+    /**
+     * Plans a route from the origin through every stop.
+     *
+     * @param originLatitude  latitude of the start point
+     * @param originLongitude longitude of the start point
+     * @param stopLatitudes   stop latitudes, index-aligned with stopLongitudes
+     * @param stopLongitudes  stop longitudes
+     * @return the visiting order as indices into the stop arrays, with the route distance
+     */
+    public Route optimize(double originLatitude, double originLongitude,
+                          double[] stopLatitudes, double[] stopLongitudes) {
+        if (stopLatitudes.length != stopLongitudes.length) {
+            throw new IllegalArgumentException("Stop latitude and longitude arrays differ in length");
+        }
+        int stops = stopLatitudes.length;
+        if (stops == 0) {
+            return new Route(new int[0], 0.0);
+        }
+
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        double[] latitudes = new double[stops + 1];
+        double[] longitudes = new double[stops + 1];
+        latitudes[0] = originLatitude;
+        longitudes[0] = originLongitude;
+        System.arraycopy(stopLatitudes, 0, latitudes, 1, stops);
+        System.arraycopy(stopLongitudes, 0, longitudes, 1, stops);
+        double[][] distances = GeoKernel.distanceMatrixKm(GeoPoints.of(latitudes, longitudes));
+
+        // Node 0 is the origin, node k is stop k - 1; path[0] stays pinned to the origin
+        int[] path = nearestNeighbourPath(distances);
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(path, distances) | orOpt(path, distances);
+        }
+
+        int[] stopOrder = new int[stops];
+        for (int i = 0; i < stops; i++) {
+            stopOrder[i] = path[i + 1] - 1;
+        }
+        return new Route(stopOrder, pathLength(path, distances));
+    }
+
+    private int[] nearestNeighbourPath(double[][] distances) {
+        int nodes = distances.length;
+        int[] path = new int[nodes];
+        boolean[] visited = new boolean[nodes];
+        visited[0] = true;
+
+        for (int position = 1; position < nodes; position++) {
+            int current = path[position - 1];
+            int next = -1;
+            for (int candidate = 1; candidate < nodes; candidate++) {
+                if (!visited[candidate] && (next < 0 || distances[current][candidate] < distances[current][next])) {
+                    next = candidate;
+                }
+            }
+            path[position] = next;
+            visited[next] = true;
+        }
+        return path;
+    }
+
+    /**
+     * Reverses path[i..j] whenever that shortens the route. On an open path the last stop has no
+     * outgoing edge, so reversing a tail segment only changes its incoming edge.
+     */
+    private boolean twoOpt(int[] path, double[][] distances) {
+        int last = path.length - 1;
+        boolean improved = false;
+
+        for (int i = 1; i < last; i++) {
+            for (int j = i + 1; j <= last; j++) {
+                int before = path[i - 1];
+                double delta = distances[before][path[j]] - distances[before][path[i]];
+                if (j < last) {
+                    int after = path[j + 1];
+                    delta += distances[path[i]][after] - distances[path[j]][after];
+                }
+                if (delta < -IMPROVEMENT_EPSILON_KM) {
+                    reverse(path, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Moves segments of up to three consecutive stops to a better position in the path, keeping
+     * their direction.
+     */
+    private boolean orOpt(int[] path, double[][] distances) {
+        int last = path.length - 1;
+        boolean improved = false;
+
+        for (int length = 1; length <= MAX_OR_OPT_SEGMENT; length++) {
+            for (int start = 1; start + length - 1 <= last; start++) {
+                int end = start + length - 1;
+                int before = path[start - 1];
+                double removeGain = distances[before][path[start]];
+                if (end < last) {
+                    removeGain += distances[path[end]][path[end + 1]] - distances[before][path[end + 1]];
+                }
+
+                // Try to insert the segment between path[k] and path[k + 1] (or after the last stop)
+                for (int k = 0; k <= last; k++) {
+                    if (k >= start - 1 && k <= end) {
+                        continue;
+                    }
+                    double insertCost = distances[path[k]][path[start]];
+                    if (k < last) {
+                        insertCost += distances[path[end]][path[k + 1]] - distances[path[k]][path[k + 1]];
+                    }
+                    if (insertCost - removeGain < -IMPROVEMENT_EPSILON_KM) {
+                        moveSegment(path, start, end, k);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static void moveSegment(int[] path, int start, int end, int insertAfter) {
+        int length = end - start + 1;
+        int[] segment = new int[length];
+        System.arraycopy(path, start, segment, 0, length);
+
+        if (insertAfter < start) {
+            // Shift path[insertAfter + 1 .. start - 1] right by the segment length
+            System.arraycopy(path, insertAfter + 1, path, insertAfter + 1 + length, start - insertAfter - 1);
+            System.arraycopy(segment, 0, path, insertAfter + 1, length);
+        } else {
+            // Shift path[end + 1 .. insertAfter] left by the segment length
+            System.arraycopy(path, end + 1, path, start, insertAfter - end);
+            System.arraycopy(segment, 0, path, insertAfter - length + 1, length);
+        }
+    }
+
+    private static void reverse(int[] path, int i, int j) {
+        while (i < j) {
+            int tmp = path[i];
+            path[i++] = path[j];
+            path[j--] = tmp;
+        }
+    }
+
+    private static double pathLength(int[] path, double[][] distances) {
+        double total = 0.0;
+        for (int i = 1; i < path.length; i++) {
+            total += distances[path[i - 1]][path[i]];
+        }
+        return total;
+    }
+
+    /**
+     * A planned route: the stop visiting order and the total distance from the origin to the last stop.
+     */
+    public static class Route {
+
+        private final int[] stopOrder;
+        private final double distanceKm;
+
+        public Route(int[] stopOrder, double distanceKm) {
+            this.stopOrder = stopOrder;
+            this.distanceKm = distanceKm;
+        }
+
+        public int[] getStopOrder() {
+            return stopOrder.clone();
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+
+        /**
+         * Reorders the given stops, index-aligned with the arrays passed to {@link RouteOptimizer#optimize},
+         * into visiting order.
+         */
+        public <T> List<T> arrange(List<T> stops) {
+            List<T> arranged = new ArrayList<>(stopOrder.length);
+            for (int index : stopOrder) {
+                arranged.add(stops.get(index));
+            }
+            return arranged;
+        }
+    }
+}
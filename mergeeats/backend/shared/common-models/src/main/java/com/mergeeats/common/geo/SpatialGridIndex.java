@@ -0,0 +1,136 @@
+package com.mergeeats.common.geo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cell-bucketed spatial index over latitude/longitude points.
+ *
+ * Points are hashed into square cells of a fixed angular size. A radius query only visits the
+ * cells overlapping the exact bounding box of the query circle, so callers compare a point
+ * against its neighbourhood instead of against every indexed point.
+ *
+ * Queries return a candidate superset: every point within the radius is returned, but points
+ * slightly outside it may be too, so callers still apply their own exact distance check.
+ * This class is not thread-safe.
+ */
+public class SpatialGridIndex<T> {
+
+    private static final double EPSILON_DEGREES = 1e-9;
+
+    private final double cellSizeDegrees;
+    private final Map<Long, List<T>> cells = new HashMap<>();
+    private int size;
+
+    public SpatialGridIndex(double cellSizeKm) {
+        if (!(cellSizeKm > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSizeKm);
+        }
+        this.cellSizeDegrees = Math.toDegrees(cellSizeKm / GeoKernel.EARTH_RADIUS_KM);
+    }
+
+    public void insert(T item, double latitude, double longitude) {
+        cells.computeIfAbsent(cellKey(latitude, longitude), k -> new ArrayList<>())
+             .add(item);
+        size++;
+    }
+
+    public boolean remove(T item, double latitude, double longitude) {
+        long key = cellKey(latitude, longitude);
+        List<T> bucket = cells.get(key);
+        if (bucket == null) {
+            return false;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i).equals(item)) {
+                // Swap-remove: order inside a cell carries no meaning
+                int last = bucket.size() - 1;
+                bucket.set(i, bucket.get(last));
+                bucket.remove(last);
+                if (bucket.isEmpty()) {
+                    cells.remove(key);
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns every indexed item whose cell overlaps the bounding box of the given circle.
+     */
+    public List<T> query(double latitude, double longitude, double radiusKm) {
+        List<T> result = new ArrayList<>();
+        double angularRadius = radiusKm / GeoKernel.EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(angularRadius) + EPSILON_DEGREES;
+
+        int minLatCell = latCell(Math.max(-90.0, latitude - dLat));
+        int maxLatCell = latCell(Math.min(90.0, latitude + dLat));
+
+        double sinRatio = Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude));
+        if (sinRatio >= 1.0 || Double.isNaN(sinRatio) || angularRadius >= Math.PI / 2) {
+            // The circle reaches over a pole: every longitude is in range
+            collect(result, minLatCell, maxLatCell, -180.0, 180.0);
+            return result;
+        }
+
+        double dLon = Math.toDegrees(Math.asin(sinRatio)) + EPSILON_DEGREES;
+        double minLon = longitude - dLon;
+        double maxLon = longitude + dLon;
+        if (minLon < -180.0) {
+            collect(result, minLatCell, maxLatCell, minLon + 360.0, 180.0);
+            collect(result, minLatCell, maxLatCell, -180.0, maxLon);
+        } else if (maxLon > 180.0) {
+            collect(result, minLatCell, maxLatCell, minLon, 180.0);
+            collect(result, minLatCell, maxLatCell, -180.0, maxLon - 360.0);
+        } else {
+            collect(result, minLatCell, maxLatCell, minLon, maxLon);
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        cells.clear();
+        size = 0;
+    }
+
+    private void collect(List<T> result, int minLatCell, int maxLatCell, double minLon, double maxLon) {
+        int minLonCell = lonCell(minLon);
+        int maxLonCell = lonCell(maxLon);
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                List<T> bucket = cells.get(pack(latCell, lonCell));
+                if (bucket != null) {
+                    result.addAll(bucket);
+                }
+            }
+        }
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return pack(latCell(latitude), lonCell(longitude));
+    }
+
+    private int latCell(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / cellSizeDegrees);
+    }
+
+    private int lonCell(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / cellSizeDegrees);
+    }
+
+    private static long pack(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+}
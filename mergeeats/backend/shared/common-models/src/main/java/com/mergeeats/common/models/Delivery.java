@@ -5,6 +5,7 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
 import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "deliveries")
+@CompoundIndex(name = "status_eta_idx", def = "{'status': 1, 'estimatedDeliveryTime': 1}")
 public class Delivery {
 
     @Id
@@ -63,6 +65,12 @@ public class Delivery {
     @NotNull(message = "Estimated delivery time is required")
     private LocalDateTime estimatedDeliveryTime;
 
+    // Live ETA from the partner's position; estimatedDeliveryTime stays the time promised to the customer
+    private LocalDateTime predictedDeliveryTime;
+
+    // Set once the delivery has been reported overdue
+    private LocalDateTime overdueNotifiedAt;
+
     private LocalDateTime actualPickupTime;
 
     private LocalDateTime actualDeliveryTime;
@@ -70,7 +78,7 @@ public class Delivery {
     // Tracking information
     private String trackingNumber;
 
-    private List<DeliveryUpdate> trackingUpdates;
+    // Status history is stored separately as DeliveryUpdate documents so this document keeps a fixed size
 
     // Route optimization data
     private List<double[]> optimizedRoute; // Array of [longitude, latitude] points
@@ -250,6 +258,22 @@ public class Delivery {
         this.estimatedDeliveryTime = estimatedDeliveryTime;
     }
 
+    public LocalDateTime getPredictedDeliveryTime() {
+        return predictedDeliveryTime;
+    }
+
+    public void setPredictedDeliveryTime(LocalDateTime predictedDeliveryTime) {
+        this.predictedDeliveryTime = predictedDeliveryTime;
+    }
+
+    public LocalDateTime getOverdueNotifiedAt() {
+        return overdueNotifiedAt;
+    }
+
+    public void setOverdueNotifiedAt(LocalDateTime overdueNotifiedAt) {
+        this.overdueNotifiedAt = overdueNotifiedAt;
+    }
+
     public LocalDateTime getActualPickupTime() {
         return actualPickupTime;
     }
@@ -274,14 +298,6 @@ public class Delivery {
         this.trackingNumber = trackingNumber;
     }
 
-    public List<DeliveryUpdate> getTrackingUpdates() {
-        return trackingUpdates;
-    }
-
-    public void setTrackingUpdates(List<DeliveryUpdate> trackingUpdates) {
-        this.trackingUpdates = trackingUpdates;
-    }
-
     public List<double[]> getOptimizedRoute() {
         return optimizedRoute;
     }
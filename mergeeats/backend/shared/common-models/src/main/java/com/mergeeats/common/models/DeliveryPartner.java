@@ -300,7 +300,8 @@ public class DeliveryPartner {
     }
 
     public boolean canTakeMoreOrders() {
-        return activeOrderIds != null && activeOrderIds.size() < maxConcurrentOrders;
+        int activeOrders = activeOrderIds != null ? activeOrderIds.size() : 0;
+        return activeOrders < maxConcurrentOrders;
     }
 
     public double getCompletionRate() {
@@ -325,6 +326,7 @@ public class DeliveryPartner {
         }
     }
 
+    // Written by ordinal in binary events (EventCodec): append new constants at the end, never reorder or remove
     public enum AvailabilityStatus {
         AVAILABLE("Available"),
         BUSY("Busy"),
@@ -3,10 +3,23 @@ package com.mergeeats.common.models;
 import com.mergeeats.common.enums.DeliveryStatus;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
 import java.time.LocalDateTime;
 
+// Tracking history entry of a delivery, stored append-only in a time-series collection bucketed per delivery
+@Document(collection = "delivery_updates")
+@TimeSeries(timeField = "timestamp", metaField = "deliveryId", granularity = Granularity.SECONDS)
 public class DeliveryUpdate {
 
+    @Id
+    private String id;
+
+    @NotBlank(message = "Delivery ID is required")
+    private String deliveryId;
+
     @NotNull(message = "Status is required")
     private DeliveryStatus status;
 
@@ -32,7 +45,7 @@ public class DeliveryUpdate {
         this.timestamp = timestamp;
     }
 
-    public DeliveryUpdate(DeliveryStatus status, String message, LocalDateTime timestamp, 
+    public DeliveryUpdate(DeliveryStatus status, String message, LocalDateTime timestamp,
                          double[] location, String updatedBy) {
         this.status = status;
         this.message = message;
@@ -41,7 +54,28 @@ public class DeliveryUpdate {
         this.updatedBy = updatedBy;
     }
 
+    public DeliveryUpdate(String deliveryId, DeliveryStatus status, String message, LocalDateTime timestamp) {
+        this(status, message, timestamp);
+        this.deliveryId = deliveryId;
+    }
+
     // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getDeliveryId() {
+        return deliveryId;
+    }
+
+    public void setDeliveryId(String deliveryId) {
+        this.deliveryId = deliveryId;
+    }
+
     public DeliveryStatus getStatus() {
         return status;
     }
@@ -94,4 +128,4 @@ public class DeliveryUpdate {
     public void setLocation(double longitude, double latitude) {
         this.location = new double[]{longitude, latitude};
     }
-}
\ No newline at end of file
+}
@@ -2,8 +2,10 @@ package com.mergeeats.common.models;
 
 import com.mergeeats.common.enums.OrderStatus;
 import com.mergeeats.common.enums.PaymentStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import jakarta.validation.constraints.NotBlank;
@@ -11,9 +13,11 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "orders")
+@CompoundIndex(name = "outbox_pending_idx", def = "{'pendingEvents.eventId': 1}", sparse = true)
 public class Order {
     
     @Id
@@ -82,6 +86,17 @@ public class Order {
     
     private BigDecimal discountAmount;
     
+    // Events not yet relayed to Kafka (transactional outbox)
+    @JsonIgnore
+    private List<OutboxEvent> pendingEvents;
+    
+    // Failed relay attempts in a row, and when the relay may try the pending events again
+    @JsonIgnore
+    private int outboxAttempts;
+    
+    @JsonIgnore
+    private LocalDateTime outboxRetryAt;
+    
     // Timestamps
     private LocalDateTime createdAt;
     
@@ -306,6 +321,37 @@ public class Order {
         this.discountAmount = discountAmount;
     }
     
+    public List<OutboxEvent> getPendingEvents() {
+        return pendingEvents;
+    }
+    
+    public void setPendingEvents(List<OutboxEvent> pendingEvents) {
+        this.pendingEvents = pendingEvents;
+    }
+    
+    public void addPendingEvent(OutboxEvent event) {
+        if (pendingEvents == null) {
+            pendingEvents = new ArrayList<>();
+        }
+        pendingEvents.add(event);
+    }
+    
+    public int getOutboxAttempts() {
+        return outboxAttempts;
+    }
+    
+    public void setOutboxAttempts(int outboxAttempts) {
+        this.outboxAttempts = outboxAttempts;
+    }
+    
+    public LocalDateTime getOutboxRetryAt() {
+        return outboxRetryAt;
+    }
+    
+    public void setOutboxRetryAt(LocalDateTime outboxRetryAt) {
+        this.outboxRetryAt = outboxRetryAt;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,91 @@
+package com.mergeeats.common.models;
+
+import com.mergeeats.common.events.EventCodec;
+import com.mergeeats.common.events.MergeEatsEvent;
+import jakarta.validation.constraints.NotBlank;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An event waiting to be published to Kafka. Outbox events are stored inside the document they
+ * describe, so they are written in the same single-document operation as the change itself, and are
+ * removed by the outbox relay once the broker has acknowledged them. The payload is the event already
+ * encoded with {@link EventCodec}, so the relay publishes the stored bytes as they are.
+ */
+public class OutboxEvent {
+
+    @NotBlank(message = "Event ID is required")
+    private String eventId;
+
+    @NotBlank(message = "Topic is required")
+    private String topic;
+
+    private String key;
+
+    private String eventType;
+
+    private byte[] payload;
+
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public OutboxEvent() {}
+
+    public OutboxEvent(String topic, String key, MergeEatsEvent event) {
+        this.eventId = UUID.randomUUID().toString();
+        this.topic = topic;
+        this.key = key;
+        this.eventType = event.eventType();
+        this.payload = EventCodec.encode(event);
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}